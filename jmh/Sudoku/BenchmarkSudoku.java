@@ -0,0 +1,267 @@
+package Sudoku;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Pruebas de rendimiento JMH del resolutor, el generador y los validadores del Sudoku sobre un corpus de referencia
+ * de Sudokus facil, dificil y patologico. Se ejecutan con gradle jmh.
+ * Cada prueba devuelve su resultado o lo entrega a un Blackhole, y los datos se leen de campos de estado,
+ * para que el JIT no pueda eliminar ni precalcular las operaciones medidas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BenchmarkSudoku
+{
+	/**
+	 * Corpus de Sudokus de referencia: nombre y Sudoku de 81 caracteres.
+	 */
+	static final String[][] CORPUS = {
+		{ "facil", "003020600900305001001806400008102900700000008006708200002609500800203009005010300" },
+		{ "dificil", "800000000003600000070090200050007000000045700000100030001000068008500010090000400" },
+		{ "patologico", "000000000000003085001020000000507000004000100090000000500000073002010000000040009" }
+	};
+
+	/**
+	 * Lee un Sudoku del corpus.
+	 * @param nombre El nombre del Sudoku en el corpus.
+	 * @return las pistas de las 81 casillas, 0 en las casillas vacias.
+	 */
+	static int[] leerCorpus(String nombre)
+	{
+		for (String[] sudoku : CORPUS)
+		{
+			if (sudoku[0].equals(nombre))
+			{
+				int[] pistas = new int[81];
+				ConsolaSudoku.leerSudoku(sudoku[1], pistas);
+				return pistas;
+			}
+		}
+		throw new IllegalArgumentException("el corpus no tiene el Sudoku '" + nombre + "'");
+	}
+
+	/**
+	 * Sudoku del corpus sobre el que se mide.
+	 */
+	@State(Scope.Thread)
+	public static class Corpus
+	{
+		/**
+		 * Nombre del Sudoku en el corpus.
+		 */
+		@Param({ "facil", "dificil", "patologico" })
+		public String sudoku;
+
+		/**
+		 * Pistas del Sudoku.
+		 */
+		int[] pistas;
+
+		/**
+		 * Lee el Sudoku del corpus.
+		 */
+		@Setup
+		public void preparar()
+		{
+			pistas = leerCorpus(sudoku);
+		}
+	}
+
+	/**
+	 * Juego con el motor de resolucion que se mide, sin cache de soluciones.
+	 */
+	@State(Scope.Thread)
+	public static class Resolucion
+	{
+		/**
+		 * Nombre del motor de resolucion.
+		 */
+		@Param({ "bitmask", "dlx", "paralelo" })
+		public String motor;
+
+		/**
+		 * Juego con el que se resuelve.
+		 */
+		Juego_Sudoku juego;
+
+		/**
+		 * Crea el juego con el motor indicado.
+		 */
+		@Setup
+		public void preparar()
+		{
+			juego = new Juego_Sudoku();
+			juego.setUsarCache(false);
+			switch (motor)
+			{
+				case "bitmask":
+					juego.setResolutor(new MotorBitmask());
+					break;
+				case "dlx":
+					juego.setResolutor(new MotorDLX());
+					break;
+				case "paralelo":
+					juego.setResolutor(new MotorParalelo());
+					break;
+				default:
+					throw new IllegalArgumentException("motor desconocido '" + motor + "'");
+			}
+		}
+	}
+
+	/**
+	 * Calificador de dificultad reutilizado entre operaciones, como en el generador.
+	 */
+	@State(Scope.Thread)
+	public static class Calificacion
+	{
+		/**
+		 * Calificador con el que se mide.
+		 */
+		final CalificadorDificultad calificador = new CalificadorDificultad();
+	}
+
+	/**
+	 * Juego con el que se generan Sudokus de una dificultad.
+	 */
+	@State(Scope.Thread)
+	public static class Generacion
+	{
+		/**
+		 * Dificultad de los Sudokus generados.
+		 */
+		@Param({ "Facil", "Medio", "Dificil" })
+		public String dificultad;
+
+		/**
+		 * Juego en el que se generan los Sudokus.
+		 */
+		Juego_Sudoku juego;
+
+		/**
+		 * Crea el juego sin cache de soluciones, para no medir el llenado de la cache.
+		 */
+		@Setup
+		public void preparar()
+		{
+			juego = new Juego_Sudoku();
+			juego.setUsarCache(false);
+		}
+	}
+
+	/**
+	 * Juego con el Sudoku facil del corpus ya resuelto y todas sus casillas marcadas como correctas.
+	 */
+	@State(Scope.Thread)
+	public static class TableroResuelto
+	{
+		/**
+		 * Juego resuelto.
+		 */
+		Juego_Sudoku juego;
+
+		/**
+		 * Resuelve el Sudoku y copia la solucion en los valores ingresados.
+		 */
+		@Setup
+		public void preparar()
+		{
+			int[] pistas = leerCorpus("facil");
+			juego = new Juego_Sudoku();
+			for (int i = 0; i < 81; i++)
+			{
+				juego.setValorBueno(i, pistas[i]);
+			}
+			juego.resolverSudoku();
+			for (int i = 0; i < 81; i++)
+			{
+				juego.setValorDado(i, juego.getValorBueno(i));
+			}
+		}
+	}
+
+	/**
+	 * Mide resolverSudoku con cada motor, restableciendo las pistas antes de cada operacion.
+	 * @param corpus El Sudoku que se resuelve.
+	 * @param resolucion El juego con el motor que se mide.
+	 * @return true si se ha encontrado solucion.
+	 */
+	@Benchmark
+	public boolean resolverSudoku(Corpus corpus, Resolucion resolucion)
+	{
+		Juego_Sudoku juego = resolucion.juego;
+		for (int i = 0; i < 81; i++)
+		{
+			juego.setValorBueno(i, corpus.pistas[i]);
+		}
+		return juego.resolverSudoku();
+	}
+
+	/**
+	 * Mide la calificacion de la dificultad de un Sudoku.
+	 * @param corpus El Sudoku que se califica.
+	 * @param calificacion El calificador.
+	 * @return la tecnica mas dificil que necesita el Sudoku.
+	 */
+	@Benchmark
+	public TecnicaResolucion calificar(Corpus corpus, Calificacion calificacion)
+	{
+		return calificacion.calificador.calificar(corpus.pistas);
+	}
+
+	/**
+	 * Mide la generacion de un Sudoku de cada dificultad.
+	 * @param generacion El juego y la dificultad.
+	 * @return la tecnica mas dificil que necesita el Sudoku generado.
+	 */
+	@Benchmark
+	public TecnicaResolucion generarSudokuConDificultad(Generacion generacion)
+	{
+		return generacion.juego.generarSudokuConDificultad(generacion.dificultad);
+	}
+
+	/**
+	 * Mide la comprobacion de tablero resuelto.
+	 * @param tablero El juego resuelto.
+	 * @return true si el tablero esta resuelto.
+	 */
+	@Benchmark
+	public boolean resuelto(TableroResuelto tablero)
+	{
+		return tablero.juego.resuelto();
+	}
+
+	/**
+	 * Mide las comprobaciones de fila, columna y region para cada numero en cada casilla de un tablero resuelto.
+	 * @param tablero El juego resuelto.
+	 * @param sumidero Recibe cada resultado para que el JIT no elimine las comprobaciones.
+	 */
+	@Benchmark
+	public void posicionValida(TableroResuelto tablero, Blackhole sumidero)
+	{
+		Juego_Sudoku juego = tablero.juego;
+		for (int i = 0; i < 81; i++)
+		{
+			for (int num = 1; num <= 9; num++)
+			{
+				sumidero.consume(juego.posicionValidaFila(i / 9, i % 9, num) && juego.posicionValidaColumna(i / 9, i % 9, num)
+						&& juego.posicionValida3x3(i / 9, i % 9, num));
+			}
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package Sudoku;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Busca pistas en un hilo aparte para que la interfaz no se bloquee mientras se aplican las tecnicas mas caras.
+ * Todas las ventanas comparten un unico hilo demonio, y con el un unico CalificadorDificultad.
+ * Pedir una pista cancela la anterior, y una pista cancelada no se entrega aunque ya estuviera calculada.
+ * Los metodos publicos deben llamarse desde el hilo de eventos de Swing, que es tambien donde se entregan las pistas.
+ */
+public class AsistentePistas
+{
+	/**
+	 * Hilo compartido en el que se buscan las pistas.
+	 */
+	private static final ExecutorService EJECUTOR = Executors.newSingleThreadExecutor(tarea -> {
+		Thread hilo = new Thread(tarea, "pistas");
+		hilo.setDaemon(true);
+		return hilo;
+	});
+
+	/**
+	 * Calificador con el que se buscan las pistas; solo lo usa el hilo de EJECUTOR.
+	 */
+	private static final CalificadorDificultad CALIFICADOR = new CalificadorDificultad();
+
+	/**
+	 * Busqueda en curso, o null si no hay ninguna.
+	 */
+	private Future<?> pendiente;
+
+	/**
+	 * Indicador de cancelacion de la busqueda en curso, que el calificador consulta dentro de las tecnicas.
+	 */
+	private AtomicBoolean cancelacion;
+
+	/**
+	 * Numero de la ultima peticion; una pista solo se entrega si su peticion sigue siendo la ultima.
+	 */
+	private long turno;
+
+	/**
+	 * Busca en segundo plano la siguiente casilla que se deduce de un tablero, cancelando la busqueda anterior.
+	 * @param valores Los valores de las 81 casillas recorridas fila a fila, 0 si la casilla esta vacia; se copian.
+	 * @param alTerminar Recibe en el hilo de eventos la pista, o null si la logica no basta para deducir ninguna casilla.
+	 */
+	public void pedir(int[] valores, Consumer<Pista> alTerminar)
+	{
+		cancelar();
+		final long peticion = turno;
+		final int[] tablero = valores.clone();
+		final AtomicBoolean cancelada = new AtomicBoolean();
+		cancelacion = cancelada;
+		pendiente = EJECUTOR.submit(() -> {
+			CALIFICADOR.setCancelacion(cancelada);
+			Pista pista = CALIFICADOR.buscarPista(tablero);
+			if (cancelada.get())
+			{
+				return;
+			}
+			SwingUtilities.invokeLater(() -> {
+				if (peticion == turno)
+				{
+					pendiente = null;
+					alTerminar.accept(pista);
+				}
+			});
+		});
+	}
+
+	/**
+	 * Cancela la busqueda en curso, si la hay, sin entregar su pista.
+	 */
+	public void cancelar()
+	{
+		turno++;
+		if (pendiente != null)
+		{
+			cancelacion.set(true);
+			pendiente.cancel(false);
+			pendiente = null;
+			cancelacion = null;
+		}
+	}
+
+	/**
+	 * Indica si hay una busqueda en curso.
+	 * @return true si se esta buscando una pista, false de lo contrario.
+	 */
+	public boolean isBuscando()
+	{
+		return pendiente != null;
+	}
+}
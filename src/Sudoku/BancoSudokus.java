@@ -0,0 +1,396 @@
+package Sudoku;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Banco de Sudokus ya generados guardado en un archivo binario de registros de tamanio fijo y leido con FileChannel.map,
+ * de modo que se pueden servir millones de Sudokus sin analizar texto, sin generar y casi sin ocupar memoria del heap.
+ * <p>
+ * El archivo empieza por una cabecera con la firma, la version y, para cada nivel de dificultad, el primer registro
+ * y el numero de registros de ese nivel; los registros de un mismo nivel son consecutivos. Cada registro ocupa 53 bytes:
+ * <ul>
+ * <li>11 bytes con la mascara de 81 bits de las casillas que son pistas, la casilla i en el bit i % 8 del byte i / 8;</li>
+ * <li>41 bytes con la solucion, un numero por cuarteto, la casilla i en el cuarteto bajo del byte i / 2 si i es par y en el alto si es impar;</li>
+ * <li>1 byte con el ordinal de la TecnicaResolucion mas dificil que necesita el Sudoku.</li>
+ * </ul>
+ * Las pistas son los valores de la solucion en las casillas marcadas, por lo que no se guardan aparte.
+ * Es seguro leer de una misma instancia desde varios hilos.
+ */
+public class BancoSudokus implements Closeable
+{
+	/**
+	 * Firma del archivo: "SDKB" en ASCII.
+	 */
+	private static final int FIRMA = 0x53444B42;
+
+	/**
+	 * Version del formato.
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * Bytes de la cabecera: firma, version y primer registro y numero de registros de cada nivel.
+	 */
+	private static final int BYTES_CABECERA = 8 + 16 * 3;
+
+	/**
+	 * Bytes de la mascara de pistas de un registro.
+	 */
+	private static final int BYTES_MASCARA = 11;
+
+	/**
+	 * Bytes de la solucion de un registro.
+	 */
+	private static final int BYTES_SOLUCION = 41;
+
+	/**
+	 * Bytes de un registro.
+	 */
+	public static final int BYTES_REGISTRO = BYTES_MASCARA + BYTES_SOLUCION + 1;
+
+	/**
+	 * Registros de cada tramo proyectado en memoria, para no superar el limite de 2 GB de un MappedByteBuffer.
+	 */
+	private static final int REGISTROS_POR_TRAMO = 1 << 24;
+
+	/**
+	 * Tecnicas indexadas por su ordinal, para no copiar TecnicaResolucion.values() en cada lectura.
+	 */
+	private static final TecnicaResolucion[] TECNICAS = TecnicaResolucion.values();
+
+	/**
+	 * Canal del archivo, abierto mientras el banco este abierto.
+	 */
+	private final FileChannel canal;
+
+	/**
+	 * Tramos del archivo proyectados en memoria; el tramo k contiene los registros desde k * REGISTROS_POR_TRAMO.
+	 */
+	private final MappedByteBuffer[] tramos;
+
+	/**
+	 * Primer registro de cada nivel, en el orden de GeneradorSudoku.NIVELES.
+	 */
+	private final long[] primeros;
+
+	/**
+	 * Numero de registros de cada nivel, en el orden de GeneradorSudoku.NIVELES.
+	 */
+	private final long[] cantidades;
+
+	/**
+	 * Abre un banco de Sudokus y proyecta en memoria sus registros.
+	 * @param ruta La ruta del archivo.
+	 * @throws IOException si no se puede leer el archivo o no tiene el formato esperado.
+	 */
+	public BancoSudokus(Path ruta) throws IOException
+	{
+		canal = FileChannel.open(ruta, StandardOpenOption.READ);
+		try
+		{
+			ByteBuffer cabecera = ByteBuffer.allocate(BYTES_CABECERA).order(ByteOrder.BIG_ENDIAN);
+			while (cabecera.hasRemaining() && canal.read(cabecera) >= 0)
+			{
+				// Se lee la cabecera completa
+			}
+			cabecera.flip();
+			if (cabecera.remaining() < BYTES_CABECERA || cabecera.getInt() != FIRMA || cabecera.getInt() != VERSION)
+			{
+				throw new IOException("el archivo '" + ruta + "' no es un banco de Sudokus");
+			}
+			int niveles = GeneradorSudoku.NIVELES.length;
+			primeros = new long[niveles];
+			cantidades = new long[niveles];
+			long total = 0;
+			for (int k = 0; k < niveles; k++)
+			{
+				primeros[k] = cabecera.getLong();
+				cantidades[k] = cabecera.getLong();
+				total = Math.max(total, primeros[k] + cantidades[k]);
+			}
+			if (BYTES_CABECERA + total * BYTES_REGISTRO > canal.size())
+			{
+				throw new IOException("el banco '" + ruta + "' esta incompleto");
+			}
+
+			tramos = new MappedByteBuffer[(int) ((total + REGISTROS_POR_TRAMO - 1) / REGISTROS_POR_TRAMO)];
+			for (int t = 0; t < tramos.length; t++)
+			{
+				long registros = Math.min(REGISTROS_POR_TRAMO, total - (long) t * REGISTROS_POR_TRAMO);
+				long posicion = BYTES_CABECERA + (long) t * REGISTROS_POR_TRAMO * BYTES_REGISTRO;
+				tramos[t] = canal.map(FileChannel.MapMode.READ_ONLY, posicion, registros * BYTES_REGISTRO);
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			canal.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Obtiene el numero de Sudokus de un nivel.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @return el numero de Sudokus de ese nivel.
+	 */
+	public long getCantidad(String dificultad)
+	{
+		return cantidades[GeneradorSudoku.indiceNivel(dificultad)];
+	}
+
+	/**
+	 * Lee un Sudoku al azar de un nivel en O(1).
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @return un Sudoku del nivel pedido, o null si el banco no tiene ninguno de ese nivel.
+	 */
+	public SudokuGenerado tomar(String dificultad)
+	{
+		int nivel = GeneradorSudoku.indiceNivel(dificultad);
+		if (cantidades[nivel] == 0)
+		{
+			return null;
+		}
+		return leer(dificultad, ThreadLocalRandom.current().nextLong(cantidades[nivel]));
+	}
+
+	/**
+	 * Lee el Sudoku numero indice de un nivel.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @param indice La posicion del Sudoku dentro de su nivel.
+	 * @return el Sudoku leido.
+	 */
+	public SudokuGenerado leer(String dificultad, long indice)
+	{
+		int[] pistas = new int[81];
+		int[] solucion = new int[81];
+		TecnicaResolucion tecnica = leer(dificultad, indice, pistas, solucion);
+		return new SudokuGenerado(pistas, solucion, tecnica);
+	}
+
+	/**
+	 * Lee el Sudoku numero indice de un nivel sin reservar memoria.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @param indice La posicion del Sudoku dentro de su nivel.
+	 * @param pistas Array de 81 posiciones donde se guardan las pistas, 0 en las casillas vacias.
+	 * @param solucion Array de 81 posiciones donde se guarda la solucion.
+	 * @return la tecnica mas dificil que necesita el Sudoku.
+	 */
+	public TecnicaResolucion leer(String dificultad, long indice, int[] pistas, int[] solucion)
+	{
+		int nivel = GeneradorSudoku.indiceNivel(dificultad);
+		if (indice < 0 || indice >= cantidades[nivel])
+		{
+			throw new IndexOutOfBoundsException("el nivel " + dificultad + " no tiene el Sudoku " + indice);
+		}
+		long registro = primeros[nivel] + indice;
+		MappedByteBuffer tramo = tramos[(int) (registro / REGISTROS_POR_TRAMO)];
+		int base = (int) (registro % REGISTROS_POR_TRAMO) * BYTES_REGISTRO;
+		for (int i = 0; i < 81; i++)
+		{
+			int par = tramo.get(base + BYTES_MASCARA + (i >> 1));
+			solucion[i] = (i & 1) == 0 ? par & 0x0F : (par >> 4) & 0x0F;
+			boolean pista = (tramo.get(base + (i >> 3)) & (1 << (i & 7))) != 0;
+			pistas[i] = pista ? solucion[i] : 0;
+		}
+		return TECNICAS[tramo.get(base + BYTES_MASCARA + BYTES_SOLUCION)];
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		canal.close();
+	}
+
+	/**
+	 * Codifica un Sudoku en un registro del banco.
+	 * @param pistas Las pistas, 0 en las casillas vacias.
+	 * @param solucion La solucion.
+	 * @param tecnica La tecnica mas dificil que necesita el Sudoku.
+	 * @param registro Array de BYTES_REGISTRO posiciones donde se escribe el registro.
+	 */
+	static void codificar(int[] pistas, int[] solucion, TecnicaResolucion tecnica, byte[] registro)
+	{
+		Arrays.fill(registro, (byte) 0);
+		for (int i = 0; i < 81; i++)
+		{
+			if (pistas[i] != 0)
+			{
+				registro[i >> 3] |= (byte) (1 << (i & 7));
+			}
+			registro[BYTES_MASCARA + (i >> 1)] |= (byte) (solucion[i] << ((i & 1) * 4));
+		}
+		registro[BYTES_MASCARA + BYTES_SOLUCION] = (byte) tecnica.ordinal();
+	}
+
+	/**
+	 * Escritor de bancos de Sudokus con memoria acotada.
+	 * Los registros de cada nivel se escriben en un archivo temporal y al terminar se juntan tras la cabecera,
+	 * de modo que se pueden anadir Sudokus de cualquier nivel en cualquier orden.
+	 * El banco completo se escribe al llamar a terminar en otro archivo temporal de la misma carpeta, que despues se mueve
+	 * de forma atomica sobre el destino: un banco anterior no se toca hasta ese momento, y quien lo tenga proyectado en memoria
+	 * sigue leyendo el archivo antiguo. Al cerrar solo se borran los archivos temporales.
+	 */
+	public static class Escritor implements Closeable
+	{
+		/**
+		 * Ruta del banco que se escribe.
+		 */
+		private final Path ruta;
+
+		/**
+		 * Archivo temporal de cada nivel.
+		 */
+		private final Path[] temporales;
+
+		/**
+		 * Salida de cada archivo temporal.
+		 */
+		private final OutputStream[] salidas;
+
+		/**
+		 * Archivo temporal en el que terminar escribe el banco completo antes de moverlo al destino; null hasta entonces.
+		 */
+		private Path completo;
+
+		/**
+		 * Numero de registros escritos de cada nivel.
+		 */
+		private final long[] cantidades;
+
+		/**
+		 * Registro en el que se codifica cada Sudoku antes de escribirlo.
+		 */
+		private final byte[] registro;
+
+		/**
+		 * Constructor de la clase Escritor.
+		 * @param ruta La ruta del banco que se escribe; se sobrescribe si ya existe.
+		 * @throws IOException si no se pueden crear los archivos temporales.
+		 */
+		public Escritor(Path ruta) throws IOException
+		{
+			int niveles = GeneradorSudoku.NIVELES.length;
+			this.ruta = ruta;
+			this.temporales = new Path[niveles];
+			this.salidas = new OutputStream[niveles];
+			this.cantidades = new long[niveles];
+			this.registro = new byte[BYTES_REGISTRO];
+			Path carpeta = ruta.toAbsolutePath().getParent();
+			for (int k = 0; k < niveles; k++)
+			{
+				temporales[k] = Files.createTempFile(carpeta, "banco-" + GeneradorSudoku.NIVELES[k], ".tmp");
+				salidas[k] = new BufferedOutputStream(Files.newOutputStream(temporales[k]), 1 << 16);
+			}
+		}
+
+		/**
+		 * Anade un Sudoku al banco en el nivel de la tecnica que necesita.
+		 * @param pistas Las pistas, 0 en las casillas vacias.
+		 * @param solucion La solucion.
+		 * @param tecnica La tecnica mas dificil que necesita el Sudoku.
+		 * @throws IOException si falla la escritura.
+		 */
+		public void agregar(int[] pistas, int[] solucion, TecnicaResolucion tecnica) throws IOException
+		{
+			int nivel = GeneradorSudoku.indiceNivel(tecnica.getNivel());
+			codificar(pistas, solucion, tecnica, registro);
+			salidas[nivel].write(registro);
+			cantidades[nivel]++;
+		}
+
+		/**
+		 * Obtiene el numero de Sudokus anadidos de todos los niveles.
+		 * @return el numero de Sudokus.
+		 */
+		public long getCantidad()
+		{
+			long total = 0;
+			for (long cantidad : cantidades)
+			{
+				total += cantidad;
+			}
+			return total;
+		}
+
+		/**
+		 * Escribe la cabecera y junta tras ella los registros de todos los niveles en un archivo temporal,
+		 * y lo mueve de forma atomica al destino. Se llama una sola vez, tras anadir todos los Sudokus.
+		 * Si falla, el destino queda como estaba.
+		 * @throws IOException si falla la escritura.
+		 */
+		public void terminar() throws IOException
+		{
+			for (OutputStream salida : salidas)
+			{
+				salida.close();
+			}
+			completo = Files.createTempFile(ruta.toAbsolutePath().getParent(), "banco", ".tmp");
+			try (FileChannel destino = FileChannel.open(completo, StandardOpenOption.WRITE))
+			{
+				ByteBuffer cabecera = ByteBuffer.allocate(BYTES_CABECERA).order(ByteOrder.BIG_ENDIAN);
+				cabecera.putInt(FIRMA).putInt(VERSION);
+				long primero = 0;
+				for (long cantidad : cantidades)
+				{
+					cabecera.putLong(primero).putLong(cantidad);
+					primero += cantidad;
+				}
+				cabecera.flip();
+				while (cabecera.hasRemaining())
+				{
+					destino.write(cabecera);
+				}
+				for (Path temporal : temporales)
+				{
+					try (FileChannel origen = FileChannel.open(temporal, StandardOpenOption.READ))
+					{
+						long copiado = 0;
+						while (copiado < origen.size())
+						{
+							copiado += origen.transferTo(copiado, origen.size() - copiado, destino);
+						}
+					}
+				}
+				destino.force(true);
+			}
+			Files.move(completo, ruta, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		/**
+		 * Borra los archivos temporales, incluido el banco completo si no se ha llegado a mover al destino.
+		 * @throws IOException si no se pueden borrar los archivos.
+		 */
+		@Override
+		public void close() throws IOException
+		{
+			try
+			{
+				for (OutputStream salida : salidas)
+				{
+					salida.close();
+				}
+			}
+			finally
+			{
+				for (Path temporal : temporales)
+				{
+					Files.deleteIfExists(temporal);
+				}
+				if (completo != null)
+				{
+					Files.deleteIfExists(completo);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,231 @@
+package Sudoku;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache de soluciones de tamanio acotado con expulsion LRU, segura para varios hilos.
+ * La clave es el Sudoku de 81 digitos y cada entrada guarda la primera solucion y el veredicto de unicidad
+ * de una busqueda con limite de dos soluciones, de modo que un Sudoku ya resuelto se sirve sin volver a buscar.
+ * Lleva la cuenta de aciertos, fallos y expulsiones para medir su eficacia.
+ */
+public class CacheSoluciones
+{
+	/**
+	 * Limite de soluciones de las busquedas que se guardan: basta para distinguir 0, 1 o varias soluciones.
+	 */
+	public static final int LIMITE_SOLUCIONES = 2;
+
+	/**
+	 * Resultado de consultar un Sudoku que no esta en la cache.
+	 */
+	public static final int NO_ENCONTRADO = -2;
+
+	/**
+	 * Entrada de la cache: numero de soluciones encontradas y primera solucion.
+	 */
+	private static class Entrada
+	{
+		/** Numero de soluciones encontradas con LIMITE_SOLUCIONES. */
+		private final byte soluciones;
+
+		/** Primera solucion encontrada, o null si no hay ninguna. */
+		private final byte[] solucion;
+
+		/**
+		 * Constructor de la clase Entrada.
+		 * @param soluciones Numero de soluciones encontradas.
+		 * @param solucion Primera solucion encontrada, o null si no hay ninguna.
+		 */
+		private Entrada(int soluciones, byte[] solucion)
+		{
+			this.soluciones = (byte) soluciones;
+			this.solucion = solucion;
+		}
+	}
+
+	/**
+	 * Numero maximo de entradas.
+	 */
+	private final int capacidad;
+
+	/**
+	 * Entradas en orden de acceso: la primera es la usada hace mas tiempo.
+	 */
+	private final LinkedHashMap<String, Entrada> entradas;
+
+	/**
+	 * Consultas servidas desde la cache.
+	 */
+	private long aciertos;
+
+	/**
+	 * Consultas que no estaban en la cache.
+	 */
+	private long fallos;
+
+	/**
+	 * Entradas expulsadas por falta de espacio.
+	 */
+	private long expulsiones;
+
+	/**
+	 * Constructor de la clase CacheSoluciones.
+	 * @param capacidad Numero maximo de entradas.
+	 */
+	public CacheSoluciones(int capacidad)
+	{
+		if (capacidad < 1)
+		{
+			throw new IllegalArgumentException("la capacidad de la cache debe ser al menos 1");
+		}
+		this.capacidad = capacidad;
+		this.entradas = new LinkedHashMap<String, Entrada>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entrada> mayor)
+			{
+				if (size() > CacheSoluciones.this.capacidad)
+				{
+					expulsiones++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Calcula la clave de un Sudoku: sus 81 digitos, con 0 en las casillas vacias.
+	 * @param valores Los valores de las 81 casillas recorridas fila a fila.
+	 * @return la clave del Sudoku.
+	 */
+	public static String clave(int[] valores)
+	{
+		char[] texto = new char[81];
+		for (int i = 0; i < 81; i++)
+		{
+			texto[i] = (char) ('0' + valores[i]);
+		}
+		return new String(texto);
+	}
+
+	/**
+	 * Consulta un Sudoku en la cache y, si esta, copia su primera solucion.
+	 * @param clave La clave del Sudoku.
+	 * @param limite El numero de soluciones a partir del cual se detendria la busqueda; como mucho LIMITE_SOLUCIONES.
+	 * @param solucion Array de 81 posiciones donde se copia la primera solucion, si la hay.
+	 * @return el numero de soluciones, como maximo el limite indicado, o NO_ENCONTRADO.
+	 */
+	public synchronized int consultar(String clave, int limite, int[] solucion)
+	{
+		Entrada entrada = entradas.get(clave);
+		if (entrada == null || limite > LIMITE_SOLUCIONES)
+		{
+			fallos++;
+			return NO_ENCONTRADO;
+		}
+		aciertos++;
+		if (entrada.solucion != null)
+		{
+			for (int i = 0; i < 81; i++)
+			{
+				solucion[i] = entrada.solucion[i];
+			}
+		}
+		return Math.min(entrada.soluciones, limite);
+	}
+
+	/**
+	 * Guarda el resultado de una busqueda con limite LIMITE_SOLUCIONES, expulsando la entrada usada hace mas tiempo si no cabe.
+	 * @param clave La clave del Sudoku.
+	 * @param soluciones El numero de soluciones encontradas.
+	 * @param solucion La primera solucion encontrada; se ignora si no hay soluciones.
+	 */
+	public synchronized void guardar(String clave, int soluciones, int[] solucion)
+	{
+		byte[] copia = null;
+		if (soluciones > 0)
+		{
+			copia = new byte[81];
+			for (int i = 0; i < 81; i++)
+			{
+				copia[i] = (byte) solucion[i];
+			}
+		}
+		entradas.put(clave, new Entrada(soluciones, copia));
+	}
+
+	/**
+	 * Vacia la cache y pone a cero sus contadores.
+	 */
+	public synchronized void vaciar()
+	{
+		entradas.clear();
+		aciertos = 0;
+		fallos = 0;
+		expulsiones = 0;
+	}
+
+	/**
+	 * Obtiene el numero maximo de entradas.
+	 * @return la capacidad de la cache.
+	 */
+	public int getCapacidad()
+	{
+		return capacidad;
+	}
+
+	/**
+	 * Obtiene el numero de entradas guardadas.
+	 * @return el tamanio actual de la cache.
+	 */
+	public synchronized int getTamanio()
+	{
+		return entradas.size();
+	}
+
+	/**
+	 * Obtiene el numero de consultas servidas desde la cache.
+	 * @return los aciertos.
+	 */
+	public synchronized long getAciertos()
+	{
+		return aciertos;
+	}
+
+	/**
+	 * Obtiene el numero de consultas que no estaban en la cache.
+	 * @return los fallos.
+	 */
+	public synchronized long getFallos()
+	{
+		return fallos;
+	}
+
+	/**
+	 * Obtiene el numero de entradas expulsadas por falta de espacio.
+	 * @return las expulsiones.
+	 */
+	public synchronized long getExpulsiones()
+	{
+		return expulsiones;
+	}
+
+	/**
+	 * Calcula la proporcion de consultas servidas desde la cache.
+	 * @return la tasa de aciertos entre 0 y 1, o 0 si no ha habido consultas.
+	 */
+	public synchronized double getTasaAciertos()
+	{
+		long consultas = aciertos + fallos;
+		return consultas == 0 ? 0 : (double) aciertos / consultas;
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return String.format("entradas=%d/%d aciertos=%d fallos=%d expulsiones=%d tasa=%.1f%%",
+				entradas.size(), capacidad, aciertos, fallos, expulsiones, getTasaAciertos() * 100);
+	}
+}
@@ -0,0 +1,796 @@
+package Sudoku;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Calificador de la dificultad de un Sudoku segun la tecnica humana mas dificil que necesita.
+ * Resuelve el Sudoku solo con logica, aplicando siempre la tecnica mas sencilla que permite avanzar:
+ * singles, parejas, intersecciones, X-Wing y cadenas. Si ninguna tecnica avanza, el Sudoku necesita prueba y error.
+ * Los candidatos se guardan como mascaras de 9 bits, por lo que calificar un Sudoku cuesta pocos microsegundos
+ * y puede hacerse para cada Sudoku generado. Con la misma logica busca pistas: la siguiente casilla que se deduce de un tablero.
+ */
+public class CalificadorDificultad
+{
+	/**
+	 * Valores de las 81 casillas durante la calificacion, 0 si la casilla esta vacia.
+	 */
+	private final int[] valores;
+
+	/**
+	 * Mascara de candidatos de cada casilla vacia; 0 en las casillas rellenas.
+	 */
+	private final int[] candidatos;
+
+	/**
+	 * Posiciones de cada numero dentro de una unidad, o de cada linea en X-Wing, como mascara de 9 bits.
+	 */
+	private final int[] posiciones;
+
+	/**
+	 * Color de cada casilla en la cadena de colores: 2 * componente o 2 * componente + 1, 0 sin color.
+	 */
+	private final int[] colores;
+
+	/**
+	 * Cola del recorrido en anchura de la cadena de colores.
+	 */
+	private final int[] cola;
+
+	/**
+	 * Casillas a las que alguna tecnica ha quitado candidatos desde que se cargo el Sudoku, para explicar las pistas.
+	 */
+	private final boolean[] implicadas;
+
+	/**
+	 * Numero de casillas vacias que quedan.
+	 */
+	private int vacias;
+
+	/**
+	 * Indicador con el que otro hilo detiene la busqueda de una pista, o null si no se puede cancelar.
+	 */
+	private AtomicBoolean cancelacion;
+
+	/**
+	 * Constructor de la clase CalificadorDificultad.
+	 */
+	public CalificadorDificultad()
+	{
+		valores = new int[81];
+		candidatos = new int[81];
+		posiciones = new int[9];
+		colores = new int[81];
+		cola = new int[81];
+		implicadas = new boolean[81];
+	}
+
+	/**
+	 * Establece el indicador compartido con el que otros hilos pueden detener la busqueda de una pista.
+	 * Las tecnicas mas caras lo consultan en sus bucles externos, por lo que la busqueda se detiene sin esperar
+	 * a que termine la ronda de tecnicas en curso.
+	 * @param cancelacion El indicador de cancelacion, o null para no permitir cancelar.
+	 */
+	public void setCancelacion(AtomicBoolean cancelacion)
+	{
+		this.cancelacion = cancelacion;
+	}
+
+	/**
+	 * Comprueba si se ha pedido detener la busqueda.
+	 * @return true si el indicador de cancelacion esta activado, false de lo contrario.
+	 */
+	private boolean cancelada()
+	{
+		return cancelacion != null && cancelacion.get();
+	}
+
+	/**
+	 * Calcula la region 3x3 de una casilla.
+	 * @param i El indice de la casilla, de 0 a 80.
+	 * @return el indice de la region, de 0 a 8.
+	 */
+	private static int region(int i)
+	{
+		return MotorBitmask.region(i / 9, i % 9);
+	}
+
+	/**
+	 * Califica un Sudoku por la tecnica mas dificil que necesita para resolverse.
+	 * Se supone que el Sudoku tiene solucion unica; el array recibido no se modifica.
+	 * @param sudoku Los valores de las 81 casillas recorridas fila a fila, 0 si la casilla esta vacia.
+	 * @return la tecnica mas dificil necesaria, o PRUEBA_Y_ERROR si la logica no basta.
+	 */
+	public TecnicaResolucion calificar(int[] sudoku)
+	{
+		cargar(sudoku);
+		TecnicaResolucion maxima = TecnicaResolucion.SINGLE_DESNUDO;
+		while (vacias > 0)
+		{
+			TecnicaResolucion tecnica = aplicarSiguienteTecnica();
+			if (tecnica == null)
+			{
+				return TecnicaResolucion.PRUEBA_Y_ERROR;
+			}
+			if (tecnica.compareTo(maxima) > 0)
+			{
+				maxima = tecnica;
+			}
+		}
+		return maxima;
+	}
+
+	/**
+	 * Califica un Sudoku y devuelve directamente su nivel de dificultad.
+	 * @param sudoku Los valores de las 81 casillas recorridas fila a fila, 0 si la casilla esta vacia.
+	 * @return "Facil", "Medio" o "Dificil".
+	 */
+	public String calificarNivel(int[] sudoku)
+	{
+		return calificar(sudoku).getNivel();
+	}
+
+	/**
+	 * Busca la siguiente casilla que se deduce con logica de un tablero a medio resolver. Si ningun single es inmediato,
+	 * aplica las tecnicas de eliminacion, de menor a mayor dificultad, hasta que aparezca uno.
+	 * Se detiene en cuanto se activa el indicador de cancelacion. El array recibido no se modifica.
+	 * @param sudoku Los valores de las 81 casillas recorridas fila a fila, 0 si la casilla esta vacia.
+	 * @return la pista, con la tecnica mas dificil empleada y las casillas que la justifican, o null si el tablero esta lleno,
+	 * la logica no basta o la busqueda se ha cancelado.
+	 */
+	public Pista buscarPista(int[] sudoku)
+	{
+		cargar(sudoku);
+		Arrays.fill(implicadas, false);
+		TecnicaResolucion maxima = TecnicaResolucion.SINGLE_DESNUDO;
+		while (vacias > 0 && !cancelada())
+		{
+			Pista pista = buscarSingle(maxima);
+			if (pista != null)
+			{
+				return pista;
+			}
+			TecnicaResolucion tecnica = aplicarSiguienteEliminacion();
+			if (tecnica == null)
+			{
+				return null;
+			}
+			if (tecnica.compareTo(maxima) > 0)
+			{
+				maxima = tecnica;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Busca el primer single desnudo y, si no hay, el primer single oculto, sin colocarlo.
+	 * @param previa La tecnica mas dificil empleada antes para eliminar candidatos.
+	 * @return la pista del single, o null si no hay ninguno.
+	 */
+	private Pista buscarSingle(TecnicaResolucion previa)
+	{
+		boolean[] casillas = new boolean[81];
+		for (int i = 0; i < 81; i++)
+		{
+			int c = candidatos[i];
+			if (c != 0 && (c & (c - 1)) == 0)
+			{
+				// Las vecinas llenas descartan los demas numeros
+				for (int v : VecinasSudoku.VECINAS[i])
+				{
+					casillas[v] = valores[v] != 0;
+				}
+				return crearPista(previa, TecnicaResolucion.SINGLE_DESNUDO, i, Integer.numberOfTrailingZeros(c) + 1, casillas);
+			}
+		}
+		for (int[] unidad : MotorBitmask.UNIDADES)
+		{
+			calcularPosiciones(unidad);
+			for (int d = 0; d < 9; d++)
+			{
+				if (Integer.bitCount(posiciones[d]) == 1)
+				{
+					// El resto de la unidad esta lleno o no admite el numero
+					for (int j : unidad)
+					{
+						casillas[j] = true;
+					}
+					int i = unidad[Integer.numberOfTrailingZeros(posiciones[d])];
+					return crearPista(previa, TecnicaResolucion.SINGLE_OCULTO, i, d + 1, casillas);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Crea una pista con la casilla deducida en primer lugar, seguida de las que la justifican y de las que perdieron candidatos antes.
+	 * @param previa La tecnica mas dificil empleada antes para eliminar candidatos.
+	 * @param single La tecnica con la que se deduce la casilla.
+	 * @param indice La casilla deducida.
+	 * @param valor El numero de la casilla deducida.
+	 * @param casillas Las casillas que justifican el single.
+	 * @return la pista.
+	 */
+	private Pista crearPista(TecnicaResolucion previa, TecnicaResolucion single, int indice, int valor, boolean[] casillas)
+	{
+		int[] lista = new int[81];
+		int n = 0;
+		lista[n++] = indice;
+		for (int i = 0; i < 81; i++)
+		{
+			if (i != indice && (casillas[i] || implicadas[i]))
+			{
+				lista[n++] = i;
+			}
+		}
+		TecnicaResolucion tecnica = single.compareTo(previa) > 0 ? single : previa;
+		return new Pista(tecnica, indice, valor, Arrays.copyOf(lista, n));
+	}
+
+	/**
+	 * Carga un Sudoku y calcula los candidatos de cada casilla vacia.
+	 * @param sudoku Los valores de las 81 casillas.
+	 */
+	private void cargar(int[] sudoku)
+	{
+		vacias = 0;
+		for (int i = 0; i < 81; i++)
+		{
+			valores[i] = sudoku[i];
+			candidatos[i] = sudoku[i] == 0 ? MotorBitmask.TODOS : 0;
+			if (sudoku[i] == 0)
+			{
+				vacias++;
+			}
+		}
+		for (int i = 0; i < 81; i++)
+		{
+			if (valores[i] != 0)
+			{
+				int bit = 1 << (valores[i] - 1);
+				for (int v : VecinasSudoku.VECINAS[i])
+				{
+					candidatos[v] &= ~bit;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Aplica la tecnica mas sencilla que permite avanzar.
+	 * @return la tecnica aplicada, o null si ninguna permite avanzar.
+	 */
+	private TecnicaResolucion aplicarSiguienteTecnica()
+	{
+		if (singlesDesnudos())
+		{
+			return TecnicaResolucion.SINGLE_DESNUDO;
+		}
+		if (singlesOcultos())
+		{
+			return TecnicaResolucion.SINGLE_OCULTO;
+		}
+		return aplicarSiguienteEliminacion();
+	}
+
+	/**
+	 * Aplica la tecnica de eliminacion de candidatos mas sencilla que permite avanzar, sin contar los singles.
+	 * @return la tecnica aplicada, o null si ninguna permite avanzar.
+	 */
+	private TecnicaResolucion aplicarSiguienteEliminacion()
+	{
+		if (parejasDesnudas())
+		{
+			return TecnicaResolucion.PAREJA_DESNUDA;
+		}
+		if (parejasOcultas())
+		{
+			return TecnicaResolucion.PAREJA_OCULTA;
+		}
+		if (intersecciones())
+		{
+			return TecnicaResolucion.INTERSECCION;
+		}
+		if (xWing())
+		{
+			return TecnicaResolucion.X_WING;
+		}
+		if (xyWing())
+		{
+			return TecnicaResolucion.XY_WING;
+		}
+		if (cadenaColores())
+		{
+			return TecnicaResolucion.CADENA_COLORES;
+		}
+		return null;
+	}
+
+	/**
+	 * Coloca un numero en una casilla y lo elimina de los candidatos de sus 20 vecinas.
+	 * @param i El indice de la casilla.
+	 * @param num El numero a colocar, del 1 al 9.
+	 */
+	private void colocar(int i, int num)
+	{
+		valores[i] = num;
+		candidatos[i] = 0;
+		vacias--;
+		int bit = 1 << (num - 1);
+		for (int v : VecinasSudoku.VECINAS[i])
+		{
+			candidatos[v] &= ~bit;
+		}
+	}
+
+	/**
+	 * Elimina candidatos de una casilla.
+	 * @param i El indice de la casilla.
+	 * @param mascara Los candidatos a eliminar.
+	 * @return true si la casilla tenia alguno de esos candidatos, false de lo contrario.
+	 */
+	private boolean eliminar(int i, int mascara)
+	{
+		if ((candidatos[i] & mascara) == 0)
+		{
+			return false;
+		}
+		candidatos[i] &= ~mascara;
+		implicadas[i] = true;
+		return true;
+	}
+
+	/**
+	 * Coloca todos los singles desnudos: casillas con un unico candidato.
+	 * @return true si se ha colocado algun numero, false de lo contrario.
+	 */
+	private boolean singlesDesnudos()
+	{
+		boolean avance = false;
+		for (int i = 0; i < 81; i++)
+		{
+			int c = candidatos[i];
+			if (c != 0 && (c & (c - 1)) == 0)
+			{
+				colocar(i, Integer.numberOfTrailingZeros(c) + 1);
+				avance = true;
+			}
+		}
+		return avance;
+	}
+
+	/**
+	 * Coloca todos los singles ocultos: numeros que solo caben en una casilla de su unidad.
+	 * @return true si se ha colocado algun numero, false de lo contrario.
+	 */
+	private boolean singlesOcultos()
+	{
+		boolean avance = false;
+		for (int[] unidad : MotorBitmask.UNIDADES)
+		{
+			int una = 0;
+			int varias = 0;
+			for (int i : unidad)
+			{
+				varias |= una & candidatos[i];
+				una |= candidatos[i];
+			}
+			int unicos = una & ~varias;
+			for (int k = 0; k < 9 && unicos != 0; k++)
+			{
+				int bit = candidatos[unidad[k]] & unicos;
+				if (bit != 0)
+				{
+					bit &= -bit;
+					colocar(unidad[k], Integer.numberOfTrailingZeros(bit) + 1);
+					unicos &= ~bit;
+					avance = true;
+				}
+			}
+		}
+		return avance;
+	}
+
+	/**
+	 * Aplica parejas desnudas: dos casillas de una unidad con los mismos dos candidatos
+	 * eliminan esos candidatos del resto de la unidad.
+	 * @return true si se ha eliminado algun candidato, false de lo contrario.
+	 */
+	private boolean parejasDesnudas()
+	{
+		boolean avance = false;
+		for (int[] unidad : MotorBitmask.UNIDADES)
+		{
+			for (int a = 0; a < 9; a++)
+			{
+				int c = candidatos[unidad[a]];
+				if (Integer.bitCount(c) != 2)
+				{
+					continue;
+				}
+				for (int b = a + 1; b < 9; b++)
+				{
+					if (candidatos[unidad[b]] == c)
+					{
+						for (int k = 0; k < 9; k++)
+						{
+							if (k != a && k != b)
+							{
+								avance |= eliminar(unidad[k], c);
+							}
+						}
+					}
+				}
+			}
+		}
+		return avance;
+	}
+
+	/**
+	 * Aplica parejas ocultas: dos numeros que solo caben en las mismas dos casillas de una unidad
+	 * eliminan cualquier otro candidato de esas casillas.
+	 * @return true si se ha eliminado algun candidato, false de lo contrario.
+	 */
+	private boolean parejasOcultas()
+	{
+		boolean avance = false;
+		for (int[] unidad : MotorBitmask.UNIDADES)
+		{
+			calcularPosiciones(unidad);
+			for (int d1 = 0; d1 < 9; d1++)
+			{
+				if (Integer.bitCount(posiciones[d1]) != 2)
+				{
+					continue;
+				}
+				for (int d2 = d1 + 1; d2 < 9; d2++)
+				{
+					if (posiciones[d2] == posiciones[d1])
+					{
+						int otros = MotorBitmask.TODOS & ~((1 << d1) | (1 << d2));
+						for (int k = 0; k < 9; k++)
+						{
+							if ((posiciones[d1] & (1 << k)) != 0)
+							{
+								avance |= eliminar(unidad[k], otros);
+							}
+						}
+					}
+				}
+			}
+		}
+		return avance;
+	}
+
+	/**
+	 * Calcula en que casillas de una unidad es candidato cada numero.
+	 * @param unidad Las 9 casillas de la unidad.
+	 */
+	private void calcularPosiciones(int[] unidad)
+	{
+		Arrays.fill(posiciones, 0);
+		for (int k = 0; k < 9; k++)
+		{
+			int c = candidatos[unidad[k]];
+			while (c != 0)
+			{
+				int d = Integer.numberOfTrailingZeros(c);
+				posiciones[d] |= 1 << k;
+				c &= c - 1;
+			}
+		}
+	}
+
+	/**
+	 * Aplica intersecciones: si en una region un numero solo cabe en una fila o columna, se elimina
+	 * del resto de esa fila o columna; si en una fila o columna solo cabe en una region, se elimina del resto de la region.
+	 * @return true si se ha eliminado algun candidato, false de lo contrario.
+	 */
+	private boolean intersecciones()
+	{
+		boolean avance = false;
+		for (int d = 0; d < 9; d++)
+		{
+			int bit = 1 << d;
+
+			// La region obliga a una fila o columna
+			for (int r = 0; r < 9; r++)
+			{
+				int filasNum = 0;
+				int columnasNum = 0;
+				for (int i : MotorBitmask.UNIDADES[18 + r])
+				{
+					if ((candidatos[i] & bit) != 0)
+					{
+						filasNum |= 1 << (i / 9);
+						columnasNum |= 1 << (i % 9);
+					}
+				}
+				if (filasNum != 0 && (filasNum & (filasNum - 1)) == 0)
+				{
+					avance |= eliminarFueraDeRegion(MotorBitmask.UNIDADES[Integer.numberOfTrailingZeros(filasNum)], r, bit);
+				}
+				if (columnasNum != 0 && (columnasNum & (columnasNum - 1)) == 0)
+				{
+					avance |= eliminarFueraDeRegion(MotorBitmask.UNIDADES[9 + Integer.numberOfTrailingZeros(columnasNum)], r, bit);
+				}
+			}
+
+			// La fila o columna obliga a una region
+			for (int u = 0; u < 18; u++)
+			{
+				int regionesNum = 0;
+				for (int i : MotorBitmask.UNIDADES[u])
+				{
+					if ((candidatos[i] & bit) != 0)
+					{
+						regionesNum |= 1 << region(i);
+					}
+				}
+				if (regionesNum != 0 && (regionesNum & (regionesNum - 1)) == 0)
+				{
+					for (int i : MotorBitmask.UNIDADES[18 + Integer.numberOfTrailingZeros(regionesNum)])
+					{
+						boolean enLinea = u < 9 ? i / 9 == u : i % 9 == u - 9;
+						if (!enLinea)
+						{
+							avance |= eliminar(i, bit);
+						}
+					}
+				}
+			}
+		}
+		return avance;
+	}
+
+	/**
+	 * Elimina un candidato de las casillas de una fila o columna que no pertenecen a una region.
+	 * @param linea Las 9 casillas de la fila o columna.
+	 * @param r La region que se respeta.
+	 * @param bit El candidato a eliminar.
+	 * @return true si se ha eliminado algun candidato, false de lo contrario.
+	 */
+	private boolean eliminarFueraDeRegion(int[] linea, int r, int bit)
+	{
+		boolean avance = false;
+		for (int i : linea)
+		{
+			if (region(i) != r)
+			{
+				avance |= eliminar(i, bit);
+			}
+		}
+		return avance;
+	}
+
+	/**
+	 * Aplica X-Wing: si un numero solo cabe en las mismas dos columnas de dos filas, se elimina
+	 * del resto de esas columnas, y lo mismo intercambiando filas y columnas.
+	 * @return true si se ha eliminado algun candidato, false de lo contrario.
+	 */
+	private boolean xWing()
+	{
+		boolean avance = false;
+		for (int d = 0; d < 9 && !cancelada(); d++)
+		{
+			int bit = 1 << d;
+			for (int base = 0; base <= 9; base += 9)
+			{
+				int cubierta = 9 - base;
+				for (int l = 0; l < 9; l++)
+				{
+					posiciones[l] = 0;
+					for (int k = 0; k < 9; k++)
+					{
+						if ((candidatos[MotorBitmask.UNIDADES[base + l][k]] & bit) != 0)
+						{
+							posiciones[l] |= 1 << k;
+						}
+					}
+				}
+				for (int l1 = 0; l1 < 9; l1++)
+				{
+					if (Integer.bitCount(posiciones[l1]) != 2)
+					{
+						continue;
+					}
+					for (int l2 = l1 + 1; l2 < 9; l2++)
+					{
+						if (posiciones[l2] != posiciones[l1])
+						{
+							continue;
+						}
+						for (int k = 0; k < 9; k++)
+						{
+							if ((posiciones[l1] & (1 << k)) == 0)
+							{
+								continue;
+							}
+							for (int m = 0; m < 9; m++)
+							{
+								if (m != l1 && m != l2)
+								{
+									avance |= eliminar(MotorBitmask.UNIDADES[cubierta + k][m], bit);
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+		return avance;
+	}
+
+	/**
+	 * Aplica XY-Wing: una casilla pivote con candidatos {a, b} que ve a dos pinzas {a, c} y {b, c}
+	 * obliga a que una de las pinzas sea c, por lo que c se elimina de las casillas que ven a ambas pinzas.
+	 * @return true si se ha eliminado algun candidato, false de lo contrario.
+	 */
+	private boolean xyWing()
+	{
+		boolean avance = false;
+		for (int p = 0; p < 81 && !cancelada(); p++)
+		{
+			int cp = candidatos[p];
+			if (Integer.bitCount(cp) != 2)
+			{
+				continue;
+			}
+			for (int a : VecinasSudoku.VECINAS[p])
+			{
+				int ca = candidatos[a];
+				if (Integer.bitCount(ca) != 2 || Integer.bitCount(ca & cp) != 1)
+				{
+					continue;
+				}
+				int c = ca & ~cp;
+				int buscada = (cp & ~ca) | c;
+				for (int b : VecinasSudoku.VECINAS[p])
+				{
+					if (candidatos[b] != buscada)
+					{
+						continue;
+					}
+					for (int v : VecinasSudoku.VECINAS[a])
+					{
+						if (v != b && VecinasSudoku.seVen(v, b))
+						{
+							avance |= eliminar(v, c);
+						}
+					}
+				}
+			}
+		}
+		return avance;
+	}
+
+	/**
+	 * Aplica la cadena de colores de un solo numero. Las parejas conjugadas (unidades donde el numero solo cabe
+	 * en dos casillas) forman cadenas cuyas casillas se colorean alternativamente: uno de los dos colores es cierto.
+	 * Si dos casillas del mismo color se ven, ese color es falso; y una casilla que ve a los dos colores no puede
+	 * contener el numero.
+	 * @return true si se ha eliminado algun candidato, false de lo contrario.
+	 */
+	private boolean cadenaColores()
+	{
+		for (int d = 0; d < 9; d++)
+		{
+			int bit = 1 << d;
+			Arrays.fill(colores, 0);
+			int componente = 0;
+			for (int inicio = 0; inicio < 81 && !cancelada(); inicio++)
+			{
+				if ((candidatos[inicio] & bit) == 0 || colores[inicio] != 0)
+				{
+					continue;
+				}
+
+				// Recorrido en anchura por las parejas conjugadas
+				componente++;
+				colores[inicio] = componente * 2;
+				cola[0] = inicio;
+				int tamanio = 1;
+				for (int k = 0; k < tamanio; k++)
+				{
+					int i = cola[k];
+					int[] unidadesCasilla = { i / 9, 9 + i % 9, 18 + region(i) };
+					for (int u : unidadesCasilla)
+					{
+						int conjugada = conjugada(MotorBitmask.UNIDADES[u], i, bit);
+						if (conjugada >= 0 && colores[conjugada] == 0)
+						{
+							colores[conjugada] = colores[i] ^ 1;
+							cola[tamanio++] = conjugada;
+						}
+					}
+				}
+				if (tamanio < 3)
+				{
+					continue;
+				}
+
+				// Dos casillas del mismo color que se ven: ese color es falso
+				for (int x = 0; x < tamanio; x++)
+				{
+					for (int y = x + 1; y < tamanio; y++)
+					{
+						if (colores[cola[x]] == colores[cola[y]] && VecinasSudoku.seVen(cola[x], cola[y]))
+						{
+							int falso = colores[cola[x]];
+							for (int k = 0; k < tamanio; k++)
+							{
+								if (colores[cola[k]] == falso)
+								{
+									eliminar(cola[k], bit);
+								}
+							}
+							return true;
+						}
+					}
+				}
+
+				// Casillas fuera de la cadena que ven a los dos colores
+				boolean avance = false;
+				for (int v = 0; v < 81; v++)
+				{
+					if ((candidatos[v] & bit) == 0 || colores[v] >> 1 == componente)
+					{
+						continue;
+					}
+					boolean vePar = false;
+					boolean veImpar = false;
+					for (int k = 0; k < tamanio && !(vePar && veImpar); k++)
+					{
+						if (VecinasSudoku.seVen(v, cola[k]))
+						{
+							if ((colores[cola[k]] & 1) == 0)
+							{
+								vePar = true;
+							}
+							else
+							{
+								veImpar = true;
+							}
+						}
+					}
+					if (vePar && veImpar)
+					{
+						avance |= eliminar(v, bit);
+					}
+				}
+				if (avance)
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Busca la pareja conjugada de una casilla para un numero dentro de una unidad.
+	 * @param unidad Las 9 casillas de la unidad.
+	 * @param i La casilla de partida.
+	 * @param bit El numero, como mascara de un bit.
+	 * @return la otra casilla si el numero solo cabe en dos casillas de la unidad, o -1 de lo contrario.
+	 */
+	private int conjugada(int[] unidad, int i, int bit)
+	{
+		int otra = -1;
+		int cuenta = 0;
+		for (int j : unidad)
+		{
+			if ((candidatos[j] & bit) != 0)
+			{
+				cuenta++;
+				if (j != i)
+				{
+					otra = j;
+				}
+			}
+		}
+		return cuenta == 2 ? otra : -1;
+	}
+}
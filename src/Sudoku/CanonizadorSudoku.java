@@ -0,0 +1,258 @@
+package Sudoku;
+
+import java.util.Arrays;
+
+/**
+ * Calcula la forma canonica de un Sudoku bajo su grupo de simetrias: renombrado de numeros, permutacion de filas
+ * dentro de cada banda y de columnas dentro de cada pila, intercambio de bandas y de pilas, y trasposicion.
+ * La forma canonica es el representante lexicograficamente minimo, leyendo el tablero fila a fila con los numeros
+ * renombrados por orden de aparicion y las casillas vacias como 0.
+ * La busqueda recorre las filas canonicas de una en una y poda toda rama cuyo prefijo ya supera al mejor encontrado,
+ * por lo que no recorre las mas de tres millones de transformaciones del grupo.
+ * No es seguro compartir una instancia entre hilos.
+ */
+public class CanonizadorSudoku
+{
+	/**
+	 * Las 1296 permutaciones de 9 lineas que respetan las bandas: orden de las bandas y orden dentro de cada banda.
+	 */
+	private static final int[][] PERMUTACIONES = new int[1296][9];
+
+	/**
+	 * Las 6 permutaciones de tres elementos.
+	 */
+	private static final int[][] PERMUTACIONES_3 = {
+		{ 0, 1, 2 }, { 0, 2, 1 }, { 1, 0, 2 }, { 1, 2, 0 }, { 2, 0, 1 }, { 2, 1, 0 }
+	};
+
+	static
+	{
+		int n = 0;
+		for (int[] bandas : PERMUTACIONES_3)
+		{
+			for (int[] p0 : PERMUTACIONES_3)
+			{
+				for (int[] p1 : PERMUTACIONES_3)
+				{
+					for (int[] p2 : PERMUTACIONES_3)
+					{
+						int[][] dentro = { p0, p1, p2 };
+						for (int j = 0; j < 9; j++)
+						{
+							PERMUTACIONES[n][j] = bandas[j / 3] * 3 + dentro[j / 3][j % 3];
+						}
+						n++;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Tablero que se canoniza, ya traspuesto si procede.
+	 */
+	private final int[] tablero;
+
+	/**
+	 * Mejor forma canonica encontrada hasta el momento; 10 en las filas que aun no se han fijado.
+	 */
+	private final int[] mejor;
+
+	/**
+	 * Fila del tablero elegida en cada nivel de la busqueda actual.
+	 */
+	private final int[] filas;
+
+	/**
+	 * Renombrado de numeros en cada nivel de la busqueda: numero original a numero canonico.
+	 * El nivel 0 no se modifica nunca y representa el renombrado vacio.
+	 */
+	private final int[][] renombrados;
+
+	/**
+	 * Numero de numeros ya renombrados en cada nivel de la busqueda.
+	 */
+	private final int[] usados;
+
+	/**
+	 * Columnas de la busqueda actual.
+	 */
+	private int[] columnas;
+
+	/**
+	 * Indica si la busqueda actual trabaja sobre el tablero traspuesto.
+	 */
+	private boolean traspuesta;
+
+	/**
+	 * Indica si la mejor forma encontrada procede del tablero traspuesto.
+	 */
+	private boolean mejorTraspuesta;
+
+	/**
+	 * Filas del tablero que ocupan las filas canonicas de la mejor forma encontrada.
+	 */
+	private final int[] mejoresFilas;
+
+	/**
+	 * Columnas del tablero que ocupan las columnas canonicas de la mejor forma encontrada.
+	 */
+	private int[] mejoresColumnas;
+
+	/**
+	 * Renombrado de numeros de la mejor forma encontrada.
+	 */
+	private final int[] mejorRenombrado;
+
+	/**
+	 * Constructor de la clase CanonizadorSudoku.
+	 */
+	public CanonizadorSudoku()
+	{
+		tablero = new int[81];
+		mejor = new int[81];
+		filas = new int[9];
+		renombrados = new int[10][10];
+		usados = new int[10];
+		mejoresFilas = new int[9];
+		mejorRenombrado = new int[10];
+	}
+
+	/**
+	 * Calcula la forma canonica de un Sudoku, con o sin casillas vacias.
+	 * @param sudoku Los valores de las 81 casillas recorridas fila a fila, 0 si la casilla esta vacia.
+	 * @return la forma canonica, su hash y la transformacion que la produce.
+	 */
+	public FormaCanonica canonizar(int[] sudoku)
+	{
+		Arrays.fill(mejor, 10);
+		for (int t = 0; t < 2; t++)
+		{
+			traspuesta = t == 1;
+			for (int i = 0; i < 81; i++)
+			{
+				tablero[i] = traspuesta ? sudoku[(i % 9) * 9 + i / 9] : sudoku[i];
+			}
+			for (int[] permutacion : PERMUTACIONES)
+			{
+				columnas = permutacion;
+				buscar(0, 0);
+			}
+		}
+
+		// Los numeros que no aparecen reciben los nombres libres en orden, para que el renombrado sea biyectivo
+		int[] digitos = mejorRenombrado.clone();
+		boolean[] ocupado = new boolean[10];
+		for (int d = 1; d <= 9; d++)
+		{
+			ocupado[digitos[d]] = true;
+		}
+		int libre = 1;
+		for (int d = 1; d <= 9; d++)
+		{
+			if (digitos[d] == 0)
+			{
+				while (ocupado[libre])
+				{
+					libre++;
+				}
+				digitos[d] = libre++;
+			}
+		}
+		return new FormaCanonica(mejor.clone(), mejorTraspuesta, mejoresFilas.clone(), mejoresColumnas.clone(), digitos);
+	}
+
+	/**
+	 * Elige la fila del tablero que ocupa la fila canonica de un nivel, respetando las bandas,
+	 * y continua solo por las ramas cuyo prefijo no supera al mejor encontrado.
+	 * @param nivel La fila canonica que se esta eligiendo.
+	 * @param bandasUsadas Mascara de las bandas del tablero ya asignadas.
+	 */
+	private void buscar(int nivel, int bandasUsadas)
+	{
+		if (nivel == 9)
+		{
+			mejorTraspuesta = traspuesta;
+			System.arraycopy(filas, 0, mejoresFilas, 0, 9);
+			mejoresColumnas = columnas;
+			System.arraycopy(renombrados[9], 0, mejorRenombrado, 0, 10);
+			return;
+		}
+
+		for (int f = 0; f < 9; f++)
+		{
+			if (!filaPermitida(nivel, f, bandasUsadas))
+			{
+				continue;
+			}
+
+			// Se renombra la fila a partir del renombrado del nivel anterior
+			int[] renombrado = renombrados[nivel + 1];
+			System.arraycopy(renombrados[nivel], 0, renombrado, 0, 10);
+			int siguiente = usados[nivel];
+			int comparacion = 0;
+			int base = nivel * 9;
+			for (int c = 0; c < 9 && comparacion <= 0; c++)
+			{
+				int v = tablero[f * 9 + columnas[c]];
+				if (v != 0)
+				{
+					if (renombrado[v] == 0)
+					{
+						renombrado[v] = ++siguiente;
+					}
+					v = renombrado[v];
+				}
+				if (comparacion == 0)
+				{
+					comparacion = Integer.compare(v, mejor[base + c]);
+					if (comparacion < 0)
+					{
+						// Nueva mejor forma: se invalidan las casillas posteriores
+						Arrays.fill(mejor, base + c + 1, 81, 10);
+					}
+				}
+				if (comparacion < 0)
+				{
+					mejor[base + c] = v;
+				}
+			}
+			if (comparacion > 0)
+			{
+				continue;
+			}
+			usados[nivel + 1] = siguiente;
+			filas[nivel] = f;
+			buscar(nivel + 1, bandasUsadas | (1 << (f / 3)));
+		}
+	}
+
+	/**
+	 * Comprueba si una fila del tablero puede ocupar la fila canonica de un nivel.
+	 * Al empezar una banda canonica vale cualquier fila de una banda sin usar; dentro de una banda,
+	 * solo las filas restantes de esa misma banda.
+	 * @param nivel La fila canonica que se esta eligiendo.
+	 * @param f La fila del tablero.
+	 * @param bandasUsadas Mascara de las bandas del tablero ya asignadas.
+	 * @return true si la fila puede elegirse, false de lo contrario.
+	 */
+	private boolean filaPermitida(int nivel, int f, int bandasUsadas)
+	{
+		if (nivel % 3 == 0)
+		{
+			return (bandasUsadas & (1 << (f / 3))) == 0;
+		}
+		if (f / 3 != filas[nivel - 1] / 3)
+		{
+			return false;
+		}
+		for (int k = nivel - nivel % 3; k < nivel; k++)
+		{
+			if (filas[k] == f)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+}
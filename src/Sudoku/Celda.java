@@ -2,32 +2,27 @@ package Sudoku;
 
 /**
  * Celda representa cada casilla del sudoku, con sus respectivos valores e informacion.
+ * Es una vista sobre una casilla de Tablero_Sudoku: no guarda valores propios, sino que lee y escribe los del tablero.
  */
 public class Celda 
 {
 
-	/** Booleano que indica si la casilla es correcta o no. */
-	private boolean correcto;
+	/** Tablero al que pertenece la casilla. */
+	private final Tablero_Sudoku tablero;
 
-	/** Valor ingresado por el usuario en la celda. */
-	private int valorDado;
-
-	/** Valor correcto de la casilla en el sudoku. */
-	private int valorBueno;
-
-	/** Indica si el valor de la celda es parte de la configuracion inicial. */
-	private boolean valorBase;
+	/** Indice de la casilla en el tablero, de 0 a 80 recorriendo fila a fila. */
+	private final int indice;
 
 	/**
 	 * Constructor de la clase Celda.
-	 * Inicializa una celda con valores predeterminados.
+	 * Crea una vista sobre una casilla del tablero.
+	 * @param tablero 	El tablero al que pertenece la casilla.
+	 * @param indice 	El indice de la casilla en el tablero, de 0 a 80.
 	 */
-	public Celda() 
+	public Celda(Tablero_Sudoku tablero, int indice) 
 	{
-		this.setValorDado(0);     // Inicializa el valor dado en 0.
-		this.setValorBueno(0);    // Inicializa el valor correcto en 0.
-		this.setCorrecto(false);  // Inicializa la casilla como incorrecta.
-		this.setValorBase(false); // Inicializa la casilla como parte de la configuracion inicial.
+		this.tablero = tablero;
+		this.indice = indice;
 	}
 
 	/**
@@ -36,7 +31,7 @@ public class Celda
 	 */
 	public boolean isCorrecto() 
 	{
-		return correcto;
+		return tablero.isCorrecto(indice);
 	}
 
 	/**
@@ -45,7 +40,7 @@ public class Celda
 	 */
 	public void setCorrecto(boolean correcto) 
 	{
-		this.correcto = correcto;
+		tablero.setCorrecto(indice, correcto);
 	}
 
 	/**
@@ -54,7 +49,7 @@ public class Celda
 	 */
 	public boolean isBase() 
 	{
-		return valorBase;
+		return tablero.isBase(indice);
 	}
 
 	/**
@@ -63,7 +58,7 @@ public class Celda
 	 */
 	public void setValorBase(boolean base) 
 	{
-		this.valorBase = base;
+		tablero.setValorBase(indice, base);
 	}
 
 	/**
@@ -72,7 +67,7 @@ public class Celda
 	 */
 	public int getValorDado() 
 	{
-		return valorDado;
+		return tablero.getValorDado(indice);
 	}
 
 	/**
@@ -82,11 +77,34 @@ public class Celda
 	 */
 	public void setValorDado(int valorDado) 
 	{
-		if (valorDado == this.valorBueno) 
-		{
-			correcto = true;
-		}
-		this.valorDado = valorDado;
+		tablero.setValorDado(indice, valorDado);
+	}
+
+	/**
+	 * Comprueba si el valor ingresado en la celda se repite en su fila, columna o region.
+	 * @return true si la celda esta en conflicto, false de lo contrario.
+	 */
+	public boolean enConflicto() 
+	{
+		return tablero.enConflicto(indice);
+	}
+
+	/**
+	 * Obtiene las notas de la celda.
+	 * @return la mascara de 9 bits de los candidatos anotados, con el bit numero - 1 para cada numero.
+	 */
+	public int getNotas() 
+	{
+		return tablero.getNotas(indice);
+	}
+
+	/**
+	 * Establece las notas de la celda.
+	 * @param notas 	La mascara de 9 bits de los candidatos anotados.
+	 */
+	public void setNotas(int notas) 
+	{
+		tablero.setNotas(indice, notas);
 	}
 
 	/**
@@ -95,7 +113,7 @@ public class Celda
 	 */
 	public int getValorBueno() 
 	{
-		return valorBueno;
+		return tablero.getValorBueno(indice);
 	}
 
 	/**
@@ -104,6 +122,6 @@ public class Celda
 	 */
 	public void setValorBueno(int valorBueno) 
 	{
-		this.valorBueno = valorBueno;
+		tablero.setValorBueno(indice, valorBueno);
 	}
 }
@@ -7,10 +7,18 @@ public class ClaseMainSudoku
 {
     /**
      * Punto de entrada para ejecutar el programa.
+     * Sin argumentos abre la interfaz grafica; con argumentos ejecuta el modo de consola.
      * @param args Los argumentos de la linea de comandos.
      */
 	public static void main(String[] args) 
     {
+		if (args.length > 0) 
+		{
+			ConsolaSudoku.ejecutar(args);
+			return;
+		}
+		// La reserva de Sudokus se empieza a rellenar mientras se muestra la pantalla de carga
+		Juego_Sudoku.getReserva();
 		new InterfazPantallaCarga().setVisible(true);
     }
 }
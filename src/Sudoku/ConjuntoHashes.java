@@ -0,0 +1,109 @@
+package Sudoku;
+
+/**
+ * Conjunto de hashes de 128 bits guardados como dos long en una tabla de direccionamiento abierto con sondeo lineal.
+ * Cada hash ocupa 16 bytes en la tabla, que se duplica al llenarse a la mitad, por lo que no crea un objeto por elemento
+ * y ocupa entre 32 y 64 bytes por hash, en lugar de los cerca de 100 de un String hexadecimal en un HashSet.
+ * No es seguro compartir una instancia entre hilos.
+ */
+public class ConjuntoHashes
+{
+	/**
+	 * Mitad alta de cada hash de la tabla; la posicion esta libre si las dos mitades son 0.
+	 */
+	private long[] altos;
+
+	/**
+	 * Mitad baja de cada hash de la tabla.
+	 */
+	private long[] bajos;
+
+	/**
+	 * Numero de hashes distintos de 0 guardados en la tabla.
+	 */
+	private int tamanio;
+
+	/**
+	 * Indica si se ha agregado el hash 0, que no se puede guardar en la tabla porque marca las posiciones libres.
+	 */
+	private boolean contieneCero;
+
+	/**
+	 * Constructor de la clase ConjuntoHashes.
+	 */
+	public ConjuntoHashes()
+	{
+		altos = new long[1024];
+		bajos = new long[1024];
+	}
+
+	/**
+	 * Agrega un hash al conjunto.
+	 * @param alto La mitad alta del hash.
+	 * @param bajo La mitad baja del hash.
+	 * @return true si el hash no estaba en el conjunto, false si ya estaba.
+	 */
+	public boolean agregar(long alto, long bajo)
+	{
+		if (alto == 0 && bajo == 0)
+		{
+			boolean nuevo = !contieneCero;
+			contieneCero = true;
+			return nuevo;
+		}
+		int mascara = altos.length - 1;
+		int posicion = (int) (bajo ^ (bajo >>> 32)) & mascara;
+		while (altos[posicion] != 0 || bajos[posicion] != 0)
+		{
+			if (altos[posicion] == alto && bajos[posicion] == bajo)
+			{
+				return false;
+			}
+			posicion = (posicion + 1) & mascara;
+		}
+		altos[posicion] = alto;
+		bajos[posicion] = bajo;
+		if (++tamanio * 2 > altos.length)
+		{
+			crecer();
+		}
+		return true;
+	}
+
+	/**
+	 * Duplica la tabla y vuelve a colocar todos los hashes.
+	 */
+	private void crecer()
+	{
+		long[] altosAnteriores = altos;
+		long[] bajosAnteriores = bajos;
+		altos = new long[altosAnteriores.length * 2];
+		bajos = new long[bajosAnteriores.length * 2];
+		int mascara = altos.length - 1;
+		for (int k = 0; k < altosAnteriores.length; k++)
+		{
+			long alto = altosAnteriores[k];
+			long bajo = bajosAnteriores[k];
+			if (alto == 0 && bajo == 0)
+			{
+				continue;
+			}
+			int posicion = (int) (bajo ^ (bajo >>> 32)) & mascara;
+			while (altos[posicion] != 0 || bajos[posicion] != 0)
+			{
+				posicion = (posicion + 1) & mascara;
+			}
+			altos[posicion] = alto;
+			bajos[posicion] = bajo;
+		}
+	}
+
+	/**
+	 * Obtiene el numero de hashes distintos del conjunto.
+	 * @return el numero de hashes.
+	 */
+	public long getTamanio()
+	{
+		return tamanio + (contieneCero ? 1 : 0);
+	}
+}
@@ -0,0 +1,610 @@
+package Sudoku;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Modo de consola del Sudoku, que permite trabajar sin interfaz grafica.
+ * Se ejecuta desde ClaseMainSudoku cuando se pasan argumentos en la linea de comandos, por ejemplo:
+ * <pre>
+ * java Sudoku.ClaseMainSudoku solve --in sudokus.txt --out soluciones.txt --threads 8
+ * java Sudoku.ClaseMainSudoku generate --difficulty Dificil --count 1000000 --threads 8 --out dificiles.txt
+ * </pre>
+ */
+public class ConsolaSudoku
+{
+	/**
+	 * Numero de lineas que resuelve cada tarea de un lote.
+	 */
+	private static final int LINEAS_POR_LOTE = 1024;
+
+	/**
+	 * Motor de resolucion de cada hilo de trabajo.
+	 */
+	private static final ThreadLocal<MotorResolucion> MOTORES = ThreadLocal.withInitial(MotorBitmask::new);
+
+	/**
+	 * Canonizador de cada hilo de trabajo.
+	 */
+	private static final ThreadLocal<CanonizadorSudoku> CANONIZADORES = ThreadLocal.withInitial(CanonizadorSudoku::new);
+
+	/**
+	 * Generador de Sudokus de cada hilo de trabajo.
+	 */
+	private static final ThreadLocal<GeneradorSudoku> GENERADORES = ThreadLocal.withInitial(GeneradorSudoku::new);
+
+	/**
+	 * Transformador de Sudokus por simetria de cada hilo de trabajo.
+	 */
+	private static final ThreadLocal<TransformadorSudoku> TRANSFORMADORES = ThreadLocal.withInitial(TransformadorSudoku::new);
+
+	/**
+	 * Milisegundos entre dos informes de progreso de la generacion.
+	 */
+	private static final long MILIS_ENTRE_INFORMES = 1000;
+
+	/**
+	 * Punto de entrada del modo de consola.
+	 * @param args Los argumentos de la linea de comandos; el primero indica la orden a ejecutar.
+	 */
+	public static void ejecutar(String[] args)
+	{
+		try
+		{
+			Map<String, String> opciones = leerOpciones(args);
+			if (args[0].equals("solve"))
+			{
+				resolverArchivo(opciones);
+			}
+			else if (args[0].equals("canon"))
+			{
+				canonizarArchivo(opciones);
+			}
+			else if (args[0].equals("generate"))
+			{
+				generarArchivo(opciones);
+			}
+			else if (args[0].equals("bank"))
+			{
+				crearBanco(opciones);
+			}
+			else
+			{
+				mostrarUso();
+			}
+		}
+		catch (IOException | InterruptedException | ExecutionException | IllegalArgumentException e)
+		{
+			System.err.println("Error: " + e.getMessage());
+			mostrarUso();
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Muestra por la salida de error las ordenes disponibles y sus opciones.
+	 */
+	private static void mostrarUso()
+	{
+		System.err.println("Uso:");
+		System.err.println("  solve [--in archivo] [--out archivo] [--threads N] [--validar] [--timeout ms] [--max-nodos N]");
+		System.err.println("        Resuelve un Sudoku de 81 caracteres por linea ('0' o '.' para las casillas vacias).");
+		System.err.println("        Con --validar comprueba ademas si la solucion es unica.");
+		System.err.println("        Con --timeout y --max-nodos se abandona cada Sudoku que supere ese tiempo o numero de nodos.");
+		System.err.println("  canon [--in archivo] [--out archivo] [--threads N] [--unicos]");
+		System.err.println("        Escribe la forma canonica de cada Sudoku y su hash de 128 bits.");
+		System.err.println("        Con --unicos omite los Sudokus equivalentes por simetria a uno anterior.");
+		System.err.println("  generate --difficulty Facil|Medio|Dificil [--count N] [--threads N] [--out archivo] [--seed N] [--variants N]");
+		System.err.println("        Genera Sudokus de solucion unica y escribe por linea las pistas, la solucion y la tecnica mas dificil");
+		System.err.println("        que necesitan, separadas por tabuladores.");
+		System.err.println("        El Sudoku numero k de una semilla es siempre el mismo; sin --seed se elige una al azar.");
+		System.err.println("        Con --variants N cada Sudoku generado da N lineas: el original y N-1 simetricos, sin volver a resolver.");
+		System.err.println("        Informa cada segundo de los Sudokus por segundo y de los percentiles de latencia.");
+		System.err.println("  bank --out archivo [--in archivo]");
+		System.err.println("        Convierte la salida de generate en un banco binario de registros fijos con un indice por dificultad.");
+		System.err.println("        Las lineas sin tecnica se califican al leerlas.");
+	}
+
+	/**
+	 * Lee las opciones de la forma --nombre valor a partir del segundo argumento.
+	 * Las opciones sin valor se guardan con el valor "true".
+	 * @param args Los argumentos de la linea de comandos.
+	 * @return un mapa con el nombre de cada opcion y su valor.
+	 */
+	private static Map<String, String> leerOpciones(String[] args)
+	{
+		Map<String, String> opciones = new HashMap<>();
+		for (int i = 1; i < args.length; i++)
+		{
+			if (!args[i].startsWith("--"))
+			{
+				throw new IllegalArgumentException("opcion no reconocida '" + args[i] + "'");
+			}
+			String nombre = args[i].substring(2);
+			if (i + 1 < args.length && !args[i + 1].startsWith("--"))
+			{
+				opciones.put(nombre, args[++i]);
+			}
+			else
+			{
+				opciones.put(nombre, "true");
+			}
+		}
+		return opciones;
+	}
+
+	/**
+	 * Obtiene el numero de hilos indicado con --threads, o el numero de procesadores si no se indica.
+	 * @param opciones Las opciones de la linea de comandos.
+	 * @return el numero de hilos a utilizar.
+	 */
+	private static int leerHilos(Map<String, String> opciones)
+	{
+		int hilos = Runtime.getRuntime().availableProcessors();
+		if (opciones.containsKey("threads"))
+		{
+			hilos = Integer.parseInt(opciones.get("threads"));
+		}
+		if (hilos < 1)
+		{
+			throw new IllegalArgumentException("el numero de hilos debe ser al menos 1");
+		}
+		return hilos;
+	}
+
+	/**
+	 * Abre la entrada indicada con --in, o la entrada estandar si no se indica.
+	 * @param opciones Las opciones de la linea de comandos.
+	 * @return el lector de la entrada.
+	 * @throws IOException si no se puede abrir el archivo.
+	 */
+	private static BufferedReader abrirEntrada(Map<String, String> opciones) throws IOException
+	{
+		InputStream entrada = opciones.containsKey("in") ? new FileInputStream(opciones.get("in")) : System.in;
+		return new BufferedReader(new InputStreamReader(entrada, StandardCharsets.US_ASCII), 1 << 16);
+	}
+
+	/**
+	 * Abre la salida indicada con --out, o la salida estandar si no se indica.
+	 * @param opciones Las opciones de la linea de comandos.
+	 * @return el escritor de la salida.
+	 * @throws IOException si no se puede crear el archivo.
+	 */
+	private static BufferedWriter abrirSalida(Map<String, String> opciones) throws IOException
+	{
+		OutputStream salida = opciones.containsKey("out") ? new FileOutputStream(opciones.get("out")) : System.out;
+		return new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.US_ASCII), 1 << 16);
+	}
+
+	/**
+	 * Resuelve en paralelo todos los Sudokus de un archivo, escribiendo las soluciones en el mismo orden.
+	 * @param opciones Las opciones de la linea de comandos.
+	 * @throws IOException si falla la lectura o la escritura.
+	 * @throws InterruptedException si se interrumpe la espera de un lote.
+	 * @throws ExecutionException si falla la resolucion de un lote.
+	 */
+	private static void resolverArchivo(Map<String, String> opciones) throws IOException, InterruptedException, ExecutionException
+	{
+		boolean validar = opciones.containsKey("validar");
+		long milisMaximos = Long.parseLong(opciones.getOrDefault("timeout", String.valueOf(PresupuestoResolucion.SIN_LIMITE)));
+		long maxNodos = Long.parseLong(opciones.getOrDefault("max-nodos", String.valueOf(PresupuestoResolucion.SIN_LIMITE)));
+		procesarArchivo(opciones, lineas -> resolverLote(lineas, validar, maxNodos, milisMaximos), null, "resueltos");
+	}
+
+	/**
+	 * Canoniza en paralelo todos los Sudokus de un archivo, escribiendo cada forma canonica y su hash en el mismo orden.
+	 * Con --unicos solo se escribe la primera aparicion de cada clase de equivalencia; de cada una se recuerda solo su hash
+	 * de 128 bits, en 16 bytes sin objetos, para que la memoria no limite el tamanio del archivo.
+	 * @param opciones Las opciones de la linea de comandos.
+	 * @throws IOException si falla la lectura o la escritura.
+	 * @throws InterruptedException si se interrumpe la espera de un lote.
+	 * @throws ExecutionException si falla la canonizacion de un lote.
+	 */
+	private static void canonizarArchivo(Map<String, String> opciones) throws IOException, InterruptedException, ExecutionException
+	{
+		ConjuntoHashes vistos = opciones.containsKey("unicos") ? new ConjuntoHashes() : null;
+		procesarArchivo(opciones, ConsolaSudoku::canonizarLote, vistos, "canonizados");
+	}
+
+	/**
+	 * Genera en paralelo Sudokus de una dificultad y los escribe en orden a medida que se completan.
+	 * Cada tarea genera un lote de indices consecutivos de la semilla y solo se mantienen en memoria unos pocos lotes por hilo,
+	 * por lo que la memoria no depende del numero de Sudokus. Con --variants cada Sudoku generado se multiplica por simetrias. Cada segundo se informa por la salida de error del progreso,
+	 * del ritmo de lineas escritas y de Sudokus generados y de los percentiles de latencia de generacion, que solo miden los Sudokus generados:
+	 * una variante cuesta una simetria y mezclarla con ellos rebajaria los percentiles.
+	 * @param opciones Las opciones de la linea de comandos.
+	 * @throws IOException si falla la escritura.
+	 * @throws InterruptedException si se interrumpe la espera de un lote.
+	 * @throws ExecutionException si falla la generacion de un lote.
+	 */
+	private static void generarArchivo(Map<String, String> opciones) throws IOException, InterruptedException, ExecutionException
+	{
+		if (!opciones.containsKey("difficulty"))
+		{
+			throw new IllegalArgumentException("falta la opcion --difficulty");
+		}
+		String dificultad = opciones.get("difficulty");
+		GeneradorSudoku.indiceNivel(dificultad);
+		long cantidad = Long.parseLong(opciones.getOrDefault("count", "1"));
+		int variantes = Integer.parseInt(opciones.getOrDefault("variants", "1"));
+		if (variantes < 1)
+		{
+			throw new IllegalArgumentException("el numero de variantes debe ser al menos 1");
+		}
+		long semilla = opciones.containsKey("seed") ? Long.parseLong(opciones.get("seed")) : new SplittableRandom().nextLong();
+		int hilos = leerHilos(opciones);
+		System.err.printf("Generando %d sudokus '%s' con semilla %d y %d hilos%n", cantidad, dificultad, semilla, hilos);
+
+		HistogramaLatencias latencias = new HistogramaLatencias();
+		LongAdder lineasHechas = new LongAdder();
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		ScheduledExecutorService informes = Executors.newSingleThreadScheduledExecutor();
+		ArrayDeque<Future<String[]>> pendientes = new ArrayDeque<>();
+		long inicio = System.nanoTime();
+		informes.scheduleAtFixedRate(() -> informarProgreso(lineasHechas.sum(), latencias, cantidad, inicio),
+				MILIS_ENTRE_INFORMES, MILIS_ENTRE_INFORMES, TimeUnit.MILLISECONDS);
+
+		try (BufferedWriter escritor = abrirSalida(opciones))
+		{
+			for (long desde = 0; desde < cantidad; desde += LINEAS_POR_LOTE)
+			{
+				final long primero = desde;
+				final int lineas = (int) Math.min(LINEAS_POR_LOTE, cantidad - desde);
+				pendientes.add(ejecutor.submit(() -> generarLote(dificultad, semilla, variantes, primero, lineas, latencias, lineasHechas)));
+
+				// Se limita el numero de lotes en vuelo para no guardar todos los Sudokus en memoria
+				if (pendientes.size() >= hilos * 4)
+				{
+					escribirLote(escritor, pendientes.poll().get(), null);
+				}
+			}
+			while (!pendientes.isEmpty())
+			{
+				escribirLote(escritor, pendientes.poll().get(), null);
+			}
+		}
+		finally
+		{
+			informes.shutdownNow();
+			ejecutor.shutdownNow();
+		}
+
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+		long generados = latencias.getCuenta();
+		System.err.printf("%d lineas en %.3f s (%.0f lineas/s) con %d hilos: %d sudokus generados (%.0f sudokus/s), %s%n",
+				cantidad, segundos, cantidad / segundos, hilos, generados, generados / segundos, latencias);
+	}
+
+	/**
+	 * Genera un lote de Sudokus consecutivos de una semilla con el generador del hilo actual.
+	 * La linea numero k es la variante k % variantes del Sudoku generado numero k / variantes; la variante 0 es el propio Sudoku
+	 * y las demas se derivan de el por simetria.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @param semilla La semilla de la serie de Sudokus.
+	 * @param variantes Numero de lineas que da cada Sudoku generado.
+	 * @param primero El indice de la primera linea del lote.
+	 * @param cantidad El numero de Sudokus del lote.
+	 * @param latencias Histograma donde se registra lo que tarda cada Sudoku generado; las variantes no se registran.
+	 * @param lineasHechas Contador de lineas completadas, que se incrementa con cada linea del lote.
+	 * @return una linea por cada Sudoku con sus pistas, su solucion y su tecnica separadas por tabuladores.
+	 */
+	private static String[] generarLote(String dificultad, long semilla, int variantes, long primero, int cantidad, HistogramaLatencias latencias,
+			LongAdder lineasHechas)
+	{
+		GeneradorSudoku generador = GENERADORES.get();
+		TransformadorSudoku transformador = TRANSFORMADORES.get();
+		String[] resultados = new String[cantidad];
+		int[] pistas = new int[81];
+		int[] solucion = new int[81];
+		int[] pistasVariante = new int[81];
+		int[] solucionVariante = new int[81];
+		long generado = -1;
+		TecnicaResolucion tecnica = null;
+		for (int k = 0; k < cantidad; k++)
+		{
+			long indice = (primero + k) / variantes;
+			int variante = (int) ((primero + k) % variantes);
+			if (indice != generado)
+			{
+				long antes = System.nanoTime();
+				tecnica = generador.generar(dificultad, semilla, indice, pistas, solucion);
+				latencias.registrar(System.nanoTime() - antes);
+				generado = indice;
+			}
+			if (variante == 0)
+			{
+				System.arraycopy(pistas, 0, pistasVariante, 0, 81);
+				System.arraycopy(solucion, 0, solucionVariante, 0, 81);
+			}
+			else
+			{
+				transformador.transformar(GeneradorSudoku.semillaSudoku(semilla, indice), variante, pistas, solucion, pistasVariante, solucionVariante);
+			}
+			resultados[k] = CacheSoluciones.clave(pistasVariante) + "\t" + CacheSoluciones.clave(solucionVariante) + "\t" + tecnica.name();
+			lineasHechas.increment();
+		}
+		return resultados;
+	}
+
+	/**
+	 * Escribe por la salida de error una linea con el progreso, el ritmo medio de lineas y de Sudokus generados
+	 * y los percentiles de latencia de la generacion.
+	 * @param lineas El numero de lineas completadas hasta el momento, incluidas las variantes.
+	 * @param latencias Histograma con lo que ha tardado cada Sudoku generado hasta el momento.
+	 * @param cantidad El numero total de lineas a escribir.
+	 * @param inicio Instante en nanosegundos en el que empezo la generacion.
+	 */
+	private static void informarProgreso(long lineas, HistogramaLatencias latencias, long cantidad, long inicio)
+	{
+		long generados = latencias.getCuenta();
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+		System.err.printf("%d/%d lineas (%.1f%%) %.0f lineas/s, %d sudokus generados %.0f sudokus/s %s%n",
+				lineas, cantidad, 100.0 * lineas / cantidad, lineas / segundos, generados, generados / segundos, latencias);
+	}
+
+	/**
+	 * Convierte un archivo con las pistas, la solucion y opcionalmente la tecnica de cada Sudoku, separadas por tabuladores,
+	 * en un banco binario. Se lee y se escribe en streaming, por lo que la memoria no depende del tamanio del archivo.
+	 * Las lineas mal formadas o con una tecnica desconocida se cuentan como invalidas y se omiten.
+	 * @param opciones Las opciones de la linea de comandos.
+	 * @throws IOException si falla la lectura o la escritura.
+	 */
+	private static void crearBanco(Map<String, String> opciones) throws IOException
+	{
+		if (!opciones.containsKey("out"))
+		{
+			throw new IllegalArgumentException("falta la opcion --out");
+		}
+		CalificadorDificultad calificador = new CalificadorDificultad();
+		int[] pistas = new int[81];
+		int[] solucion = new int[81];
+		long inicio = System.nanoTime();
+		long invalidas = 0;
+		long total;
+
+		try (BufferedReader lector = abrirEntrada(opciones); BancoSudokus.Escritor escritor = new BancoSudokus.Escritor(Paths.get(opciones.get("out"))))
+		{
+			String linea;
+			while ((linea = lector.readLine()) != null)
+			{
+				if (linea.isBlank())
+				{
+					continue;
+				}
+				String[] columnas = linea.trim().split("\t");
+				if (columnas.length < 2 || !leerSudoku(columnas[0], pistas) || !leerSudoku(columnas[1], solucion))
+				{
+					invalidas++;
+					continue;
+				}
+				TecnicaResolucion tecnica = columnas.length > 2 ? leerTecnica(columnas[2]) : calificador.calificar(pistas);
+				if (tecnica == null)
+				{
+					invalidas++;
+					continue;
+				}
+				escritor.agregar(pistas, solucion, tecnica);
+			}
+			escritor.terminar();
+			total = escritor.getCantidad();
+		}
+
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+		System.err.printf("%d sudokus guardados en el banco en %.3f s (%.0f sudokus/s), %d lineas invalidas%n", total, segundos, total / segundos, invalidas);
+	}
+
+	/**
+	 * Convierte el nombre de una tecnica, tal como lo escribe generate, en la tecnica.
+	 * @param nombre El nombre de la constante de TecnicaResolucion.
+	 * @return la tecnica, o null si el nombre no corresponde a ninguna.
+	 */
+	private static TecnicaResolucion leerTecnica(String nombre)
+	{
+		try
+		{
+			return TecnicaResolucion.valueOf(nombre);
+		}
+		catch (IllegalArgumentException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Procesa en paralelo todas las lineas de un archivo, escribiendo los resultados en el mismo orden.
+	 * Las lineas se leen por lotes y solo se mantienen en memoria unos pocos lotes por hilo.
+	 * @param opciones Las opciones de la linea de comandos.
+	 * @param tarea Funcion que transforma un lote de lineas en sus lineas de resultado.
+	 * @param vistos Hashes ya escritos, para omitir los resultados repetidos, o null para escribirlos todos.
+	 * @param accion Participio que describe la tarea en el resumen final, por ejemplo "resueltos".
+	 * @throws IOException si falla la lectura o la escritura.
+	 * @throws InterruptedException si se interrumpe la espera de un lote.
+	 * @throws ExecutionException si falla el procesamiento de un lote.
+	 */
+	private static void procesarArchivo(Map<String, String> opciones, Function<String[], String[]> tarea, ConjuntoHashes vistos, String accion) throws IOException, InterruptedException, ExecutionException
+	{
+		int hilos = leerHilos(opciones);
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		ArrayDeque<Future<String[]>> pendientes = new ArrayDeque<>();
+		long inicio = System.nanoTime();
+		long total = 0;
+
+		try (BufferedReader lector = abrirEntrada(opciones); BufferedWriter escritor = abrirSalida(opciones))
+		{
+			String[] lote = leerLote(lector);
+			while (lote != null)
+			{
+				final String[] lineas = lote;
+				pendientes.add(ejecutor.submit(() -> tarea.apply(lineas)));
+				total += lineas.length;
+
+				// Se limita el numero de lotes en vuelo para no cargar el archivo entero en memoria
+				if (pendientes.size() >= hilos * 4)
+				{
+					escribirLote(escritor, pendientes.poll().get(), vistos);
+				}
+				lote = leerLote(lector);
+			}
+			while (!pendientes.isEmpty())
+			{
+				escribirLote(escritor, pendientes.poll().get(), vistos);
+			}
+		}
+		finally
+		{
+			ejecutor.shutdownNow();
+		}
+
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+		System.err.printf("%d sudokus %s en %.3f s (%.0f sudokus/s) con %d hilos%n", total, accion, segundos, total / segundos, hilos);
+	}
+
+	/**
+	 * Lee el siguiente lote de lineas no vacias.
+	 * @param lector El lector de la entrada.
+	 * @return las lineas leidas, o null si no quedan lineas.
+	 * @throws IOException si falla la lectura.
+	 */
+	private static String[] leerLote(BufferedReader lector) throws IOException
+	{
+		List<String> lineas = new ArrayList<>(LINEAS_POR_LOTE);
+		String linea;
+		while (lineas.size() < LINEAS_POR_LOTE && (linea = lector.readLine()) != null)
+		{
+			if (!linea.isBlank())
+			{
+				lineas.add(linea.trim());
+			}
+		}
+		return lineas.isEmpty() ? null : lineas.toArray(new String[0]);
+	}
+
+	/**
+	 * Escribe las lineas de un lote ya procesado.
+	 * @param escritor El escritor de la salida.
+	 * @param lineas Las lineas a escribir.
+	 * @param vistos Hashes ya escritos, o null para escribir todas las lineas. El hash son los 32 caracteres hexadecimales tras el tabulador.
+	 * @throws IOException si falla la escritura.
+	 */
+	private static void escribirLote(BufferedWriter escritor, String[] lineas, ConjuntoHashes vistos) throws IOException
+	{
+		for (String linea : lineas)
+		{
+			int tabulador = linea.indexOf('\t');
+			if (vistos != null && tabulador >= 0)
+			{
+				long alto = Long.parseUnsignedLong(linea.substring(tabulador + 1, tabulador + 17), 16);
+				long bajo = Long.parseUnsignedLong(linea.substring(tabulador + 17, tabulador + 33), 16);
+				if (!vistos.agregar(alto, bajo))
+				{
+					continue;
+				}
+			}
+			escritor.write(linea);
+			escritor.newLine();
+		}
+	}
+
+	/**
+	 * Resuelve un lote de Sudokus con el motor del hilo actual.
+	 * @param lineas Los Sudokus del lote, uno por linea.
+	 * @param validar Si se debe comprobar ademas que la solucion sea unica.
+	 * @param maxNodos Numero maximo de nodos de busqueda por Sudoku.
+	 * @param milisMaximos Tiempo maximo en milisegundos por Sudoku.
+	 * @return una linea de resultado por cada Sudoku del lote.
+	 */
+	private static String[] resolverLote(String[] lineas, boolean validar, long maxNodos, long milisMaximos)
+	{
+		boolean limitado = maxNodos != PresupuestoResolucion.SIN_LIMITE || milisMaximos != PresupuestoResolucion.SIN_LIMITE;
+		MotorResolucion motor = MOTORES.get();
+		String[] resultados = new String[lineas.length];
+		int[] celdas = new int[81];
+		int[] solucion = new int[81];
+		char[] texto = new char[81];
+		for (int k = 0; k < lineas.length; k++)
+		{
+			if (!leerSudoku(lineas[k], celdas))
+			{
+				resultados[k] = "linea invalida";
+				continue;
+			}
+			PresupuestoResolucion presupuesto = limitado ? new PresupuestoResolucion(maxNodos, milisMaximos) : null;
+			int encontradas = motor.resolver(celdas, validar ? 2 : 1, solucion, presupuesto);
+			if (encontradas == MotorResolucion.PRESUPUESTO_AGOTADO)
+			{
+				resultados[k] = "presupuesto agotado";
+				continue;
+			}
+			if (encontradas == 0)
+			{
+				resultados[k] = "sin solucion";
+				continue;
+			}
+			for (int i = 0; i < 81; i++)
+			{
+				texto[i] = (char) ('0' + solucion[i]);
+			}
+			resultados[k] = validar ? new String(texto) + (encontradas == 1 ? "\tunica" : "\tmultiple") : new String(texto);
+		}
+		return resultados;
+	}
+
+	/**
+	 * Canoniza un lote de Sudokus con el canonizador del hilo actual.
+	 * @param lineas Los Sudokus del lote, uno por linea.
+	 * @return una linea por cada Sudoku con su forma canonica y su hash separados por un tabulador.
+	 */
+	private static String[] canonizarLote(String[] lineas)
+	{
+		CanonizadorSudoku canonizador = CANONIZADORES.get();
+		String[] resultados = new String[lineas.length];
+		int[] celdas = new int[81];
+		for (int k = 0; k < lineas.length; k++)
+		{
+			if (!leerSudoku(lineas[k], celdas))
+			{
+				resultados[k] = "linea invalida";
+				continue;
+			}
+			FormaCanonica forma = canonizador.canonizar(celdas);
+			resultados[k] = forma + "\t" + forma.getHashHexadecimal();
+		}
+		return resultados;
+	}
+
+	/**
+	 * Convierte una linea de 81 caracteres en los valores de las casillas.
+	 * @param linea La linea a convertir; '0' o '.' indican una casilla vacia.
+	 * @param celdas Array de 81 posiciones donde se guardan los valores.
+	 * @return true si la linea tiene un formato valido, false de lo contrario.
+	 */
+	public static boolean leerSudoku(String linea, int[] celdas)
+	{
+		if (linea.length() != 81)
+		{
+			return false;
+		}
+		for (int i = 0; i < 81; i++)
+		{
+			char c = linea.charAt(i);
+			if (c == '.' || c == '0')
+			{
+				celdas[i] = 0;
+			}
+			else if (c >= '1' && c <= '9')
+			{
+				celdas[i] = c - '0';
+			}
+			else
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,251 @@
+package Sudoku;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Diario de jugadas de una partida, con deshacer y rehacer en O(1).
+ * Cada jugada se empaqueta en un int: el indice de la casilla en los bits 0 a 6, el valor anterior en los bits 7 a 10,
+ * el valor nuevo en los bits 11 a 14 y la mascara de notas alternadas en los bits 15 a 23.
+ * Las jugadas se guardan en un array de int que solo crece al llenarse, por lo que registrar una jugada no crea objetos.
+ * Registrar una jugada despues de deshacer descarta las jugadas que se podian rehacer.
+ */
+public class DiarioJugadas
+{
+	/**
+	 * Resultado de deshacer o rehacer cuando no hay ninguna jugada disponible.
+	 */
+	public static final int SIN_JUGADA = -1;
+
+	/**
+	 * Cabecera con la que empieza el diario dentro de un archivo de partida.
+	 */
+	private static final String CABECERA = "diario";
+
+	/**
+	 * Jugadas registradas; las posiciones validas van de 0 a tamanio - 1.
+	 */
+	private int[] jugadas;
+
+	/**
+	 * Numero de jugadas registradas, incluidas las deshechas que aun se pueden rehacer.
+	 */
+	private int tamanio;
+
+	/**
+	 * Numero de jugadas aplicadas: la siguiente a deshacer es la anterior a esta posicion y la siguiente a rehacer la de esta posicion.
+	 */
+	private int posicion;
+
+	/**
+	 * Constructor de la clase DiarioJugadas.
+	 */
+	public DiarioJugadas()
+	{
+		jugadas = new int[64];
+	}
+
+	/**
+	 * Empaqueta una jugada en un int.
+	 * @param indice El indice de la casilla, de 0 a 80.
+	 * @param anterior El valor de la casilla antes de la jugada, de 0 a 9.
+	 * @param nuevo El valor de la casilla despues de la jugada, de 0 a 9.
+	 * @param notas La mascara de 9 bits de las notas alternadas por la jugada.
+	 * @return la jugada empaquetada.
+	 */
+	public static int codificar(int indice, int anterior, int nuevo, int notas)
+	{
+		return indice | (anterior << 7) | (nuevo << 11) | ((notas & 0x1FF) << 15);
+	}
+
+	/**
+	 * Obtiene el indice de la casilla de una jugada.
+	 * @param jugada La jugada empaquetada.
+	 * @return el indice de la casilla, de 0 a 80.
+	 */
+	public static int getIndice(int jugada)
+	{
+		return jugada & 0x7F;
+	}
+
+	/**
+	 * Obtiene el valor de la casilla antes de una jugada.
+	 * @param jugada La jugada empaquetada.
+	 * @return el valor anterior, de 0 a 9.
+	 */
+	public static int getAnterior(int jugada)
+	{
+		return (jugada >>> 7) & 0xF;
+	}
+
+	/**
+	 * Obtiene el valor de la casilla despues de una jugada.
+	 * @param jugada La jugada empaquetada.
+	 * @return el valor nuevo, de 0 a 9.
+	 */
+	public static int getNuevo(int jugada)
+	{
+		return (jugada >>> 11) & 0xF;
+	}
+
+	/**
+	 * Obtiene las notas alternadas por una jugada; aplicarlas dos veces con o exclusivo las deja como estaban.
+	 * @param jugada La jugada empaquetada.
+	 * @return la mascara de 9 bits de las notas alternadas.
+	 */
+	public static int getNotas(int jugada)
+	{
+		return (jugada >>> 15) & 0x1FF;
+	}
+
+	/**
+	 * Registra una jugada, descartando las jugadas deshechas que se podian rehacer.
+	 * @param jugada La jugada empaquetada con codificar.
+	 */
+	public void registrar(int jugada)
+	{
+		if (posicion == jugadas.length)
+		{
+			jugadas = Arrays.copyOf(jugadas, jugadas.length * 2);
+		}
+		jugadas[posicion++] = jugada;
+		tamanio = posicion;
+	}
+
+	/**
+	 * Retrocede una jugada en el diario.
+	 * @return la jugada que hay que deshacer, o SIN_JUGADA si no queda ninguna.
+	 */
+	public int deshacer()
+	{
+		return posicion == 0 ? SIN_JUGADA : jugadas[--posicion];
+	}
+
+	/**
+	 * Avanza una jugada en el diario.
+	 * @return la jugada que hay que rehacer, o SIN_JUGADA si no queda ninguna.
+	 */
+	public int rehacer()
+	{
+		return posicion == tamanio ? SIN_JUGADA : jugadas[posicion++];
+	}
+
+	/**
+	 * Obtiene una jugada registrada.
+	 * @param k La posicion de la jugada, de 0 a getTamanio() - 1.
+	 * @return la jugada empaquetada.
+	 */
+	public int getJugada(int k)
+	{
+		return jugadas[k];
+	}
+
+	/**
+	 * Obtiene el numero de jugadas aplicadas.
+	 * @return la posicion actual en el diario.
+	 */
+	public int getPosicion()
+	{
+		return posicion;
+	}
+
+	/**
+	 * Obtiene el numero de jugadas registradas, incluidas las que se pueden rehacer.
+	 * @return el tamanio del diario.
+	 */
+	public int getTamanio()
+	{
+		return tamanio;
+	}
+
+	/**
+	 * Borra todas las jugadas.
+	 */
+	public void vaciar()
+	{
+		tamanio = 0;
+		posicion = 0;
+	}
+
+	/**
+	 * Escribe el diario en un archivo de partida: la cabecera, la posicion, el tamanio y una jugada por linea.
+	 * @param escritor El escritor del archivo.
+	 * @throws IOException si falla la escritura.
+	 */
+	public void escribir(BufferedWriter escritor) throws IOException
+	{
+		escritor.write(CABECERA);
+		escritor.newLine();
+		escritor.write(Integer.toString(posicion));
+		escritor.newLine();
+		escritor.write(Integer.toString(tamanio));
+		for (int k = 0; k < tamanio; k++)
+		{
+			escritor.newLine();
+			escritor.write(Integer.toString(jugadas[k]));
+		}
+	}
+
+	/**
+	 * Lee el diario de un archivo de partida, a continuacion de lo ya leido. Si el archivo no tiene diario queda vacio.
+	 * Cada jugada se comprueba al leerla: la casilla debe ir de 0 a 80 y los valores de 0 a 9.
+	 * @param lector El lector del archivo.
+	 * @return true si el archivo tenia diario, false de lo contrario.
+	 * @throws IOException si falla la lectura o el diario esta incompleto o tiene jugadas no validas; el diario queda vacio.
+	 */
+	public boolean leer(BufferedReader lector) throws IOException
+	{
+		vaciar();
+		String linea = lector.readLine();
+		if (linea == null || !linea.trim().equals(CABECERA))
+		{
+			return false;
+		}
+		try
+		{
+			int leidaPosicion = leerNumero(lector);
+			int leidoTamanio = leerNumero(lector);
+			for (int k = 0; k < leidoTamanio; k++)
+			{
+				int jugada = leerNumero(lector);
+				if (getIndice(jugada) > 80 || getAnterior(jugada) > 9 || getNuevo(jugada) > 9 || (jugada >>> 24) != 0)
+				{
+					throw new IOException("jugada no valida en el diario: " + jugada);
+				}
+				registrar(jugada);
+			}
+			posicion = Math.max(0, Math.min(leidaPosicion, tamanio));
+		}
+		catch (IOException e)
+		{
+			vaciar();
+			throw e;
+		}
+		return true;
+	}
+
+	/**
+	 * Lee una linea del diario con un numero entero.
+	 * @param lector El lector del archivo.
+	 * @return el numero leido.
+	 * @throws IOException si el archivo se acaba o la linea no es un numero.
+	 */
+	private static int leerNumero(BufferedReader lector) throws IOException
+	{
+		String linea = lector.readLine();
+		if (linea == null)
+		{
+			throw new IOException("diario de jugadas incompleto");
+		}
+		try
+		{
+			return Integer.parseInt(linea.trim());
+		}
+		catch (NumberFormatException e)
+		{
+			throw new IOException("numero no valido en el diario: " + linea, e);
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package Sudoku;
+
+/**
+ * Contadores de una o varias resoluciones del Sudoku: nodos visitados, retrocesos, profundidad maxima,
+ * candidatos probados, deducciones de la propagacion y tiempo empleado.
+ * Los motores los rellenan al terminar cada busqueda y Juego_Sudoku los acumula para poder consultarlos
+ * o emitirlos como eventos de JDK Flight Recorder.
+ */
+public class EstadisticasResolucion
+{
+	/**
+	 * Numero de resoluciones acumuladas.
+	 */
+	private long resoluciones;
+
+	/**
+	 * Nodos del arbol de busqueda visitados.
+	 */
+	private long nodos;
+
+	/**
+	 * Contradicciones encontradas, cada una de las cuales obliga a retroceder.
+	 */
+	private long retrocesos;
+
+	/**
+	 * Candidatos probados en los puntos de ramificacion.
+	 */
+	private long candidatosProbados;
+
+	/**
+	 * Numeros colocados por la propagacion de singles, sin ramificar.
+	 */
+	private long deducciones;
+
+	/**
+	 * Mayor numero de puntos de ramificacion abiertos a la vez.
+	 */
+	private int profundidadMaxima;
+
+	/**
+	 * Tiempo empleado en nanosegundos.
+	 */
+	private long nanos;
+
+	/**
+	 * Pone todos los contadores a cero.
+	 */
+	public synchronized void reiniciar()
+	{
+		resoluciones = 0;
+		nodos = 0;
+		retrocesos = 0;
+		candidatosProbados = 0;
+		deducciones = 0;
+		profundidadMaxima = 0;
+		nanos = 0;
+	}
+
+	/**
+	 * Sustituye los contadores por los de una unica busqueda.
+	 * @param nodos Nodos del arbol de busqueda visitados.
+	 * @param retrocesos Contradicciones encontradas.
+	 * @param candidatosProbados Candidatos probados en los puntos de ramificacion.
+	 * @param deducciones Numeros colocados por la propagacion.
+	 * @param profundidadMaxima Mayor numero de puntos de ramificacion abiertos a la vez.
+	 */
+	public synchronized void fijar(long nodos, long retrocesos, long candidatosProbados, long deducciones, int profundidadMaxima)
+	{
+		this.resoluciones = 1;
+		this.nodos = nodos;
+		this.retrocesos = retrocesos;
+		this.candidatosProbados = candidatosProbados;
+		this.deducciones = deducciones;
+		this.profundidadMaxima = profundidadMaxima;
+		this.nanos = 0;
+	}
+
+	/**
+	 * Suma a estos contadores los de otra busqueda; la profundidad maxima se combina con el maximo.
+	 * Es seguro llamarlo desde varios hilos, como hacen las tareas de MotorParalelo.
+	 * @param otra Las estadisticas a sumar.
+	 * @param profundidadBase Profundidad a la que empezo la otra busqueda dentro del arbol comun.
+	 */
+	public synchronized void sumar(EstadisticasResolucion otra, int profundidadBase)
+	{
+		synchronized (otra)
+		{
+			sumar(otra.nodos, otra.retrocesos, otra.candidatosProbados, otra.deducciones, profundidadBase + otra.profundidadMaxima);
+			nanos += otra.nanos;
+		}
+	}
+
+	/**
+	 * Suma contadores sueltos, por ejemplo los de un unico nodo del arbol de busqueda.
+	 * @param nodos Nodos visitados.
+	 * @param retrocesos Contradicciones encontradas.
+	 * @param candidatosProbados Candidatos probados.
+	 * @param deducciones Numeros colocados por la propagacion.
+	 * @param profundidad Profundidad alcanzada, que se combina con el maximo.
+	 */
+	public synchronized void sumar(long nodos, long retrocesos, long candidatosProbados, long deducciones, int profundidad)
+	{
+		this.nodos += nodos;
+		this.retrocesos += retrocesos;
+		this.candidatosProbados += candidatosProbados;
+		this.deducciones += deducciones;
+		profundidadMaxima = Math.max(profundidadMaxima, profundidad);
+	}
+
+	/**
+	 * Acumula una resolucion completa, incluido su tiempo.
+	 * @param otra Las estadisticas de la resolucion.
+	 */
+	public synchronized void acumular(EstadisticasResolucion otra)
+	{
+		sumar(otra, 0);
+		resoluciones++;
+	}
+
+	/**
+	 * Obtiene el numero de resoluciones acumuladas.
+	 * @return las resoluciones acumuladas.
+	 */
+	public synchronized long getResoluciones()
+	{
+		return resoluciones;
+	}
+
+	/**
+	 * Obtiene los nodos del arbol de busqueda visitados.
+	 * @return los nodos visitados.
+	 */
+	public synchronized long getNodos()
+	{
+		return nodos;
+	}
+
+	/**
+	 * Obtiene las contradicciones encontradas, cada una de las cuales obliga a retroceder.
+	 * @return los retrocesos.
+	 */
+	public synchronized long getRetrocesos()
+	{
+		return retrocesos;
+	}
+
+	/**
+	 * Obtiene los candidatos probados en los puntos de ramificacion.
+	 * @return los candidatos probados.
+	 */
+	public synchronized long getCandidatosProbados()
+	{
+		return candidatosProbados;
+	}
+
+	/**
+	 * Obtiene los numeros colocados por la propagacion de singles.
+	 * @return las deducciones.
+	 */
+	public synchronized long getDeducciones()
+	{
+		return deducciones;
+	}
+
+	/**
+	 * Obtiene el mayor numero de puntos de ramificacion abiertos a la vez.
+	 * @return la profundidad maxima.
+	 */
+	public synchronized int getProfundidadMaxima()
+	{
+		return profundidadMaxima;
+	}
+
+	/**
+	 * Obtiene el tiempo empleado en nanosegundos.
+	 * @return el tiempo empleado.
+	 */
+	public synchronized long getNanos()
+	{
+		return nanos;
+	}
+
+	/**
+	 * Establece el tiempo empleado en nanosegundos.
+	 * @param nanos El tiempo empleado.
+	 */
+	public synchronized void setNanos(long nanos)
+	{
+		this.nanos = nanos;
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return String.format("resoluciones=%d nodos=%d retrocesos=%d candidatos=%d deducciones=%d profundidad=%d tiempo=%.3f ms",
+				resoluciones, nodos, retrocesos, candidatosProbados, deducciones, profundidadMaxima, nanos / 1e6);
+	}
+}
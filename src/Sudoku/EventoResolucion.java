@@ -0,0 +1,48 @@
+package Sudoku;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento de JDK Flight Recorder emitido por cada busqueda de soluciones de Juego_Sudoku, como resolverSudoku().
+ * Su duracion es la de la resolucion y sus campos copian los contadores de EstadisticasResolucion,
+ * de forma que una grabacion de produccion muestra que tableros disparan la busqueda sin adjuntar un perfilador.
+ * Con la grabacion desactivada el coste es una comprobacion de shouldCommit().
+ */
+@Name("Sudoku.Resolucion")
+@Label("Resolucion de Sudoku")
+@Category("Sudoku")
+@Description("Busqueda de soluciones de un tablero de Sudoku")
+public class EventoResolucion extends Event
+{
+	/** Nombre del motor de resolucion utilizado. */
+	@Label("Motor")
+	String motor;
+
+	/** Numero de soluciones encontradas, o -1 si se agoto el presupuesto. */
+	@Label("Soluciones")
+	int soluciones;
+
+	/** Nodos del arbol de busqueda visitados. */
+	@Label("Nodos")
+	long nodos;
+
+	/** Contradicciones encontradas. */
+	@Label("Retrocesos")
+	long retrocesos;
+
+	/** Candidatos probados en los puntos de ramificacion. */
+	@Label("Candidatos probados")
+	long candidatosProbados;
+
+	/** Numeros colocados por la propagacion. */
+	@Label("Deducciones")
+	long deducciones;
+
+	/** Mayor numero de puntos de ramificacion abiertos a la vez. */
+	@Label("Profundidad maxima")
+	int profundidadMaxima;
+}
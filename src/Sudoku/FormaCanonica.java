@@ -0,0 +1,196 @@
+package Sudoku;
+
+/**
+ * Forma canonica de un Sudoku calculada por CanonizadorSudoku, junto con la transformacion que la produce.
+ * Dos Sudokus equivalentes por simetria tienen la misma forma canonica y el mismo hash de 128 bits,
+ * por lo que el hash sirve para eliminar duplicados o como clave de cache.
+ * La transformacion permite llevar cualquier tablero del espacio original al canonico y al reves,
+ * por ejemplo para devolver una solucion guardada en forma canonica.
+ */
+public class FormaCanonica
+{
+	/**
+	 * Valores de las 81 casillas en forma canonica, recorridas fila a fila.
+	 */
+	private final int[] valores;
+
+	/**
+	 * Indica si el tablero original se traspone antes de permutar filas y columnas.
+	 */
+	private final boolean traspuesta;
+
+	/**
+	 * Fila del tablero original (ya traspuesto si procede) que ocupa cada fila canonica.
+	 */
+	private final int[] filas;
+
+	/**
+	 * Columna del tablero original (ya traspuesto si procede) que ocupa cada columna canonica.
+	 */
+	private final int[] columnas;
+
+	/**
+	 * Numero canonico que corresponde a cada numero original, indexado del 0 al 9; el 0 se conserva.
+	 */
+	private final int[] digitos;
+
+	/**
+	 * Mitad alta del hash de 128 bits.
+	 */
+	private final long hashAlto;
+
+	/**
+	 * Mitad baja del hash de 128 bits.
+	 */
+	private final long hashBajo;
+
+	/**
+	 * Constructor de la clase FormaCanonica.
+	 * @param valores Valores de las 81 casillas en forma canonica.
+	 * @param traspuesta Indica si el tablero original se traspone.
+	 * @param filas Fila original que ocupa cada fila canonica.
+	 * @param columnas Columna original que ocupa cada columna canonica.
+	 * @param digitos Numero canonico que corresponde a cada numero original.
+	 */
+	public FormaCanonica(int[] valores, boolean traspuesta, int[] filas, int[] columnas, int[] digitos)
+	{
+		this.valores = valores;
+		this.traspuesta = traspuesta;
+		this.filas = filas;
+		this.columnas = columnas;
+		this.digitos = digitos;
+
+		// Dos hashes independientes de 64 bits sobre los mismos valores forman el hash de 128 bits
+		long alto = 0x9E3779B97F4A7C15L;
+		long bajo = 0xC2B2AE3D27D4EB4FL;
+		for (int i = 0; i < 81; i++)
+		{
+			alto = mezclar(alto ^ valores[i]) * 31;
+			bajo = (bajo ^ valores[i]) * 0x100000001B3L;
+		}
+		this.hashAlto = mezclar(alto);
+		this.hashBajo = mezclar(bajo);
+	}
+
+	/**
+	 * Funcion de mezcla de 64 bits (finalizador de SplitMix64).
+	 * @param x El valor a mezclar.
+	 * @return el valor mezclado.
+	 */
+	private static long mezclar(long x)
+	{
+		x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+		x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+		return x ^ (x >>> 31);
+	}
+
+	/**
+	 * Obtiene los valores de las 81 casillas en forma canonica.
+	 * @return una copia de los valores canonicos.
+	 */
+	public int[] getValores()
+	{
+		return valores.clone();
+	}
+
+	/**
+	 * Obtiene el hash de 64 bits de la forma canonica.
+	 * @return la mitad baja del hash de 128 bits.
+	 */
+	public long getHash()
+	{
+		return hashBajo;
+	}
+
+	/**
+	 * Obtiene la mitad alta del hash de 128 bits de la forma canonica.
+	 * @return la mitad alta del hash.
+	 */
+	public long getHashAlto()
+	{
+		return hashAlto;
+	}
+
+	/**
+	 * Obtiene la mitad baja del hash de 128 bits de la forma canonica.
+	 * @return la mitad baja del hash.
+	 */
+	public long getHashBajo()
+	{
+		return hashBajo;
+	}
+
+	/**
+	 * Obtiene el hash de 128 bits como texto hexadecimal de 32 caracteres.
+	 * @return el hash en hexadecimal.
+	 */
+	public String getHashHexadecimal()
+	{
+		return String.format("%016x%016x", hashAlto, hashBajo);
+	}
+
+	/**
+	 * Lleva un tablero del espacio original al canonico aplicando la misma transformacion,
+	 * por ejemplo la solucion del Sudoku original.
+	 * @param original Los valores de las 81 casillas en el espacio original.
+	 * @return los valores transformados.
+	 */
+	public int[] aCanonica(int[] original)
+	{
+		int[] canonica = new int[81];
+		for (int f = 0; f < 9; f++)
+		{
+			for (int c = 0; c < 9; c++)
+			{
+				canonica[f * 9 + c] = digitos[original[indiceOriginal(filas[f], columnas[c])]];
+			}
+		}
+		return canonica;
+	}
+
+	/**
+	 * Lleva un tablero del espacio canonico al original deshaciendo la transformacion,
+	 * por ejemplo una solucion guardada en forma canonica.
+	 * @param canonica Los valores de las 81 casillas en el espacio canonico.
+	 * @return los valores en el espacio original.
+	 */
+	public int[] aOriginal(int[] canonica)
+	{
+		int[] inversos = new int[10];
+		for (int d = 0; d <= 9; d++)
+		{
+			inversos[digitos[d]] = d;
+		}
+		int[] original = new int[81];
+		for (int f = 0; f < 9; f++)
+		{
+			for (int c = 0; c < 9; c++)
+			{
+				original[indiceOriginal(filas[f], columnas[c])] = inversos[canonica[f * 9 + c]];
+			}
+		}
+		return original;
+	}
+
+	/**
+	 * Calcula el indice en el tablero original de una casilla del tablero ya traspuesto si procede.
+	 * @param fila La fila en el tablero traspuesto.
+	 * @param columna La columna en el tablero traspuesto.
+	 * @return el indice de la casilla en el tablero original.
+	 */
+	private int indiceOriginal(int fila, int columna)
+	{
+		return traspuesta ? columna * 9 + fila : fila * 9 + columna;
+	}
+
+	@Override
+	public String toString()
+	{
+		char[] texto = new char[81];
+		for (int i = 0; i < 81; i++)
+		{
+			texto[i] = (char) ('0' + valores[i]);
+		}
+		return new String(texto);
+	}
+}
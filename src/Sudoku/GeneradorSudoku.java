@@ -0,0 +1,247 @@
+package Sudoku;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generador de Sudokus por rellenado y vaciado.
+ * Primero construye un tablero completo aleatorio y despues quita pistas de una en una en orden aleatorio,
+ * comprobando tras cada una que la solucion sigue siendo unica y que el nivel no supera al pedido.
+ * Cada intento cuesta como mucho 81 comprobaciones de unicidad y calificaciones, y el numero de intentos
+ * esta acotado, por lo que el tiempo de generacion es predecible.
+ * Todo el azar sale de un SplittableRandom, de modo que el Sudoku numero k de una semilla es siempre el mismo
+ * y se puede repartir la generacion entre hilos o maquinas y regenerar cualquier Sudoku a partir de (semilla, indice).
+ * No es seguro compartir una instancia entre hilos.
+ */
+public class GeneradorSudoku
+{
+	/**
+	 * Numero maximo de tableros completos que se vacian antes de devolver el ultimo aunque su nivel no coincida.
+	 */
+	public static final int MAX_INTENTOS = 20;
+
+	/**
+	 * Niveles de dificultad en orden creciente.
+	 */
+	static final String[] NIVELES = { "Facil", "Medio", "Dificil" };
+
+	/**
+	 * Numero maximo de pistas de cada nivel, en el mismo orden que NIVELES.
+	 * Se deja de vaciar en cuanto el Sudoku alcanza el nivel pedido con estas pistas o menos.
+	 */
+	private static final int[] PISTAS = { 37, 30, 23 };
+
+	/**
+	 * Motor con el que se completa el tablero y se comprueba la unicidad.
+	 */
+	private final MotorBitmask motor;
+
+	/**
+	 * Calificador con el que se mide el nivel tras cada pista quitada.
+	 */
+	private final CalificadorDificultad calificador;
+
+	/**
+	 * Incremento de la secuencia de SplitMix64 con la que se derivan las semillas de cada Sudoku.
+	 */
+	private static final long INCREMENTO_SEMILLA = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * Generador de numeros aleatorios.
+	 */
+	private SplittableRandom random;
+
+	/**
+	 * Orden aleatorio en el que se intentan quitar las casillas.
+	 */
+	private final int[] orden;
+
+	/**
+	 * Solucion auxiliar de las comprobaciones de unicidad.
+	 */
+	private final int[] auxiliar;
+
+	/**
+	 * Constructor de la clase GeneradorSudoku.
+	 */
+	public GeneradorSudoku()
+	{
+		this(new SplittableRandom());
+	}
+
+	/**
+	 * Constructor de la clase GeneradorSudoku con un generador de numeros aleatorios concreto.
+	 * Para repartir la generacion entre hilos cada uno debe recibir su propio generador, por ejemplo con split().
+	 * @param random El generador de numeros aleatorios.
+	 */
+	public GeneradorSudoku(SplittableRandom random)
+	{
+		this.motor = new MotorBitmask();
+		this.calificador = new CalificadorDificultad();
+		this.random = random;
+		this.orden = new int[81];
+		this.auxiliar = new int[81];
+	}
+
+	/**
+	 * Obtiene la posicion de un nivel de dificultad en el orden creciente de dificultad.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @return 0, 1 o 2.
+	 */
+	public static int indiceNivel(String dificultad)
+	{
+		for (int k = 0; k < NIVELES.length; k++)
+		{
+			if (NIVELES[k].equals(dificultad))
+			{
+				return k;
+			}
+		}
+		throw new IllegalArgumentException("dificultad desconocida '" + dificultad + "'");
+	}
+
+	/**
+	 * Comprueba si la tecnica mas dificil de un Sudoku corresponde a un nivel de dificultad.
+	 * @param tecnica La tecnica mas dificil que necesita el Sudoku.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @return true si el Sudoku es de ese nivel, false de lo contrario.
+	 */
+	public static boolean cumpleNivel(TecnicaResolucion tecnica, String dificultad)
+	{
+		return indiceNivel(tecnica.getNivel()) == indiceNivel(dificultad);
+	}
+
+	/**
+	 * Genera un Sudoku de solucion unica con la dificultad indicada.
+	 * Si tras MAX_INTENTOS tableros ninguno alcanza el nivel pedido se devuelve el ultimo, que es mas facil;
+	 * quien lo use debe comprobarlo con cumpleNivel y volver a generar o descartarlo.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @param pistas Array de 81 posiciones donde se guardan las pistas, 0 en las casillas vacias.
+	 * @param solucion Array de 81 posiciones donde se guarda la solucion.
+	 * @return la tecnica mas dificil que necesita el Sudoku generado.
+	 */
+	public TecnicaResolucion generar(String dificultad, int[] pistas, int[] solucion)
+	{
+		int objetivo = indiceNivel(dificultad);
+		TecnicaResolucion tecnica = null;
+		for (int intento = 0; intento < MAX_INTENTOS; intento++)
+		{
+			rellenar(solucion);
+			System.arraycopy(solucion, 0, pistas, 0, 81);
+			tecnica = vaciar(pistas, objetivo);
+			if (indiceNivel(tecnica.getNivel()) == objetivo)
+			{
+				break;
+			}
+		}
+		return tecnica;
+	}
+
+	/**
+	 * Genera el Sudoku numero indice de una semilla. El resultado solo depende de la dificultad, la semilla y el indice,
+	 * no de los Sudokus generados antes ni del hilo que lo genera. Como generar sin semilla, puede devolver un Sudoku mas facil.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @param semilla La semilla de la serie de Sudokus.
+	 * @param indice La posicion del Sudoku dentro de la serie, desde 0.
+	 * @param pistas Array de 81 posiciones donde se guardan las pistas, 0 en las casillas vacias.
+	 * @param solucion Array de 81 posiciones donde se guarda la solucion.
+	 * @return la tecnica mas dificil que necesita el Sudoku generado.
+	 */
+	public TecnicaResolucion generar(String dificultad, long semilla, long indice, int[] pistas, int[] solucion)
+	{
+		random = new SplittableRandom(semillaSudoku(semilla, indice));
+		return generar(dificultad, pistas, solucion);
+	}
+
+	/**
+	 * Deriva la semilla de un Sudoku de la serie como el valor numero indice de SplitMix64 partiendo de la semilla,
+	 * que se calcula directamente sin recorrer los anteriores.
+	 * @param semilla La semilla de la serie de Sudokus.
+	 * @param indice La posicion del Sudoku dentro de la serie.
+	 * @return la semilla del generador de ese Sudoku.
+	 */
+	public static long semillaSudoku(long semilla, long indice)
+	{
+		long x = semilla + (indice + 1) * INCREMENTO_SEMILLA;
+		x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+		x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+		return x ^ (x >>> 31);
+	}
+
+	/**
+	 * Construye un tablero completo aleatorio. Las tres regiones de la diagonal no comparten filas ni columnas,
+	 * asi que se rellenan con permutaciones aleatorias y el motor completa el resto.
+	 * @param solucion Array de 81 posiciones donde se guarda el tablero completo.
+	 */
+	private void rellenar(int[] solucion)
+	{
+		int[] semilla = new int[81];
+		int[] numeros = { 1, 2, 3, 4, 5, 6, 7, 8, 9 };
+		for (int r = 0; r < 9; r += 4)
+		{
+			barajar(numeros, 9);
+			for (int k = 0; k < 9; k++)
+			{
+				semilla[MotorBitmask.UNIDADES[18 + r][k]] = numeros[k];
+			}
+		}
+		motor.resolver(semilla, 1, solucion);
+	}
+
+	/**
+	 * Quita pistas en orden aleatorio mientras la solucion siga siendo unica y el nivel no supere al objetivo.
+	 * @param pistas El tablero que se vacia; al terminar contiene las pistas que quedan.
+	 * @param objetivo La posicion del nivel pedido en el orden creciente de dificultad.
+	 * @return la tecnica mas dificil que necesitan las pistas que quedan.
+	 */
+	private TecnicaResolucion vaciar(int[] pistas, int objetivo)
+	{
+		for (int i = 0; i < 81; i++)
+		{
+			orden[i] = i;
+		}
+		barajar(orden, 81);
+
+		TecnicaResolucion tecnica = TecnicaResolucion.SINGLE_DESNUDO;
+		int restantes = 81;
+		for (int k = 0; k < 81; k++)
+		{
+			if (indiceNivel(tecnica.getNivel()) == objetivo && restantes <= PISTAS[objetivo])
+			{
+				break;
+			}
+			int i = orden[k];
+			int valor = pistas[i];
+			pistas[i] = 0;
+			if (motor.resolver(pistas, 2, auxiliar) != 1)
+			{
+				pistas[i] = valor;
+				continue;
+			}
+			TecnicaResolucion nueva = calificador.calificar(pistas);
+			if (indiceNivel(nueva.getNivel()) > objetivo)
+			{
+				pistas[i] = valor;
+				continue;
+			}
+			tecnica = nueva;
+			restantes--;
+		}
+		return tecnica;
+	}
+
+	/**
+	 * Baraja los primeros elementos de un array con el algoritmo de Fisher-Yates.
+	 * @param valores El array a barajar.
+	 * @param n El numero de elementos a barajar.
+	 */
+	private void barajar(int[] valores, int n)
+	{
+		for (int k = n - 1; k > 0; k--)
+		{
+			int j = random.nextInt(k + 1);
+			int aux = valores[k];
+			valores[k] = valores[j];
+			valores[j] = aux;
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package Sudoku;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias de memoria fija, seguro para varios hilos.
+ * Las latencias se guardan en microsegundos: las menores de 32 en cubetas exactas y el resto en 16 cubetas
+ * por cada potencia de dos, con un error relativo por debajo del 7%. Ocupa lo mismo con mil muestras que con
+ * mil millones, por lo que sirve para informar de percentiles en ejecuciones arbitrariamente largas.
+ */
+public class HistogramaLatencias
+{
+	/**
+	 * Numero de cubetas de cada potencia de dos.
+	 */
+	private static final int SUBCUBETAS = 16;
+
+	/**
+	 * Numero de cubetas exactas, una por microsegundo.
+	 */
+	private static final int EXACTAS = 2 * SUBCUBETAS;
+
+	/**
+	 * Muestras de cada cubeta.
+	 */
+	private final AtomicLongArray cubetas;
+
+	/**
+	 * Numero total de muestras.
+	 */
+	private final AtomicLong cuenta;
+
+	/**
+	 * Mayor latencia registrada en nanosegundos.
+	 */
+	private final AtomicLong maximo;
+
+	/**
+	 * Constructor de la clase HistogramaLatencias.
+	 */
+	public HistogramaLatencias()
+	{
+		cubetas = new AtomicLongArray(EXACTAS + (63 - 5) * SUBCUBETAS);
+		cuenta = new AtomicLong();
+		maximo = new AtomicLong();
+	}
+
+	/**
+	 * Registra una latencia.
+	 * @param nanos La latencia en nanosegundos.
+	 */
+	public void registrar(long nanos)
+	{
+		long micros = Math.max(0, nanos / 1000);
+		cubetas.incrementAndGet(cubeta(micros));
+		cuenta.incrementAndGet();
+		maximo.accumulateAndGet(nanos, Math::max);
+	}
+
+	/**
+	 * Calcula la cubeta de una latencia.
+	 * @param micros La latencia en microsegundos.
+	 * @return el indice de la cubeta.
+	 */
+	private static int cubeta(long micros)
+	{
+		if (micros < EXACTAS)
+		{
+			return (int) micros;
+		}
+		int exponente = 63 - Long.numberOfLeadingZeros(micros);
+		int sub = (int) (micros >>> (exponente - 4)) - SUBCUBETAS;
+		return EXACTAS + (exponente - 5) * SUBCUBETAS + sub;
+	}
+
+	/**
+	 * Calcula la mayor latencia que cabe en una cubeta.
+	 * @param indice El indice de la cubeta.
+	 * @return el limite superior de la cubeta en microsegundos.
+	 */
+	private static long limiteSuperior(int indice)
+	{
+		if (indice < EXACTAS)
+		{
+			return indice;
+		}
+		int exponente = (indice - EXACTAS) / SUBCUBETAS + 5;
+		int sub = (indice - EXACTAS) % SUBCUBETAS;
+		return ((long) (SUBCUBETAS + sub + 1) << (exponente - 4)) - 1;
+	}
+
+	/**
+	 * Calcula un percentil de las latencias registradas.
+	 * @param percentil El percentil entre 0 y 100.
+	 * @return la latencia del percentil en milisegundos, redondeada hacia arriba a su cubeta, o 0 si no hay muestras.
+	 */
+	public double getPercentil(double percentil)
+	{
+		long total = cuenta.get();
+		if (total == 0)
+		{
+			return 0;
+		}
+		long objetivo = Math.max(1, (long) Math.ceil(percentil / 100 * total));
+		long acumulado = 0;
+		for (int i = 0; i < cubetas.length(); i++)
+		{
+			acumulado += cubetas.get(i);
+			if (acumulado >= objetivo)
+			{
+				return Math.min(limiteSuperior(i) / 1e3, getMaximo());
+			}
+		}
+		return getMaximo();
+	}
+
+	/**
+	 * Obtiene el numero de latencias registradas.
+	 * @return el numero de muestras.
+	 */
+	public long getCuenta()
+	{
+		return cuenta.get();
+	}
+
+	/**
+	 * Obtiene la mayor latencia registrada.
+	 * @return la latencia maxima en milisegundos.
+	 */
+	public double getMaximo()
+	{
+		return maximo.get() / 1e6;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms",
+				getPercentil(50), getPercentil(90), getPercentil(99), getPercentil(99.9), getMaximo());
+	}
+}
@@ -3,6 +3,8 @@ package Sudoku;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
 import javax.sound.sampled.*;
 import javax.swing.*;
 import javax.swing.event.*;
@@ -19,6 +21,17 @@ public class Interfaz extends JFrame
 	 */
 	private static Interfaz instancia;
 
+	/**
+	 * Tiempo maximo en milisegundos para resolver el Sudoku de una partida cargada.
+	 * Un archivo manipulado podria contener un tablero patologico que bloquearia la interfaz.
+	 */
+	private static final long MILIS_MAXIMOS_CARGA = 2000;
+
+	/**
+	 * Tiempo maximo en milisegundos que se espera a la reserva de Sudokus antes de generar el tablero en segundo plano.
+	 */
+	private static final long MILIS_ESPERA_RESERVA = 3000;
+
 	/**
 	 * Boton para cargar una partida guardada previamente.
 	 */
@@ -49,6 +62,11 @@ public class Interfaz extends JFrame
 	 */
 	private JButton botonSolucionar;
 
+	/**
+	 * Boton para pedir la siguiente casilla que se deduce con logica del tablero actual.
+	 */
+	private JButton botonPista;
+
 	/**
 	 * Etiqueta para mostrar el numero de fallos cometidos por el jugador.
 	 */
@@ -92,12 +110,12 @@ public class Interfaz extends JFrame
 	/**
 	 * Indice de la fila del tablero de Sudoku seleccionada por el usuario. Inicialmente es -1, indicando que ninguna fila esta seleccionada.
 	 */
-	private int filaSeleccionada;
+	private int filaSeleccionada = -1;
 
 	/**
 	 * Indice de la columna del tablero de Sudoku seleccionada por el usuario. Inicialmente es -1, indicando que ninguna columna esta seleccionada.
 	 */
-	private int columnaSeleccionada;
+	private int columnaSeleccionada = -1;
 
 	/**
 	 * Temporizador utilizado para medir el tiempo transcurrido desde el inicio de la partida.
@@ -134,6 +152,44 @@ public class Interfaz extends JFrame
 	 */
 	private final String rutaSonido;
 
+	/**
+	 * Estado de conflicto con el que se pinto por ultima vez el borde de cada casilla, para no repintar los que no cambian.
+	 */
+	private final boolean[] conflictosMarcados = new boolean[81];
+
+	/**
+	 * Indica si se muestran en las casillas vacias las notas que el tablero actualiza en cada jugada.
+	 * Se activa con la propiedad del sistema sudoku.notas.
+	 */
+	private static final boolean MOSTRAR_NOTAS = Boolean.getBoolean("sudoku.notas");
+
+	/**
+	 * Indica si los cambios de las casillas son jugadas del usuario, que se anotan en el diario y cuentan fallos.
+	 * Se desactiva mientras se rellena el tablero, se soluciona, se reinicia o se deshace y rehace una jugada.
+	 */
+	private boolean grabarJugadas = true;
+
+	/**
+	 * Indica si al escribir un numero en una casilla vacia se anota o se borra como candidato en lugar de ingresarlo.
+	 * Se alterna con Ctrl+N y solo esta disponible cuando se muestran las notas.
+	 */
+	private boolean modoNotas;
+
+	/**
+	 * Indica si se esta preparando un tablero en segundo plano; mientras tanto la ventana no admite jugadas.
+	 */
+	private boolean preparando;
+
+	/**
+	 * Busca las pistas fuera del hilo de eventos y las cancela cuando el jugador vuelve a escribir.
+	 */
+	private final AsistentePistas asistentePistas = new AsistentePistas();
+
+	/**
+	 * Casillas resaltadas por la ultima pista o por las casillas incorrectas que impiden darla; vacio si no hay ninguna.
+	 */
+	private int[] casillasPista = new int[0];
+
 	/**
 	 * Constructor de la clase Interfaz. 
 	 * Inicializa los componentes y configura el entorno grafico de la aplicacion Sudoku, incluyendo el temporizador, 
@@ -150,8 +206,9 @@ public class Interfaz extends JFrame
         
         rutaSonido = "victory.wav";
 
-		setTitle("SUDOKU : 'Nivel " + InterfazDificultad.getInstancia().getDificultadSeleccionada() + "'");
-		Juego_Sudoku.crearNuevaInstancia().generarSudokuConDificultad(InterfazDificultad.getInstancia().getDificultadSeleccionada());
+		actualizarTitulo();
+		String dificultad = InterfazDificultad.getInstancia().getDificultadSeleccionada();
+		boolean listo = Juego_Sudoku.crearNuevaInstancia().nuevoSudokuConDificultad(dificultad);
 
 
 		setLocationRelativeTo(null);
@@ -164,6 +221,125 @@ public class Interfaz extends JFrame
 
 		rellenarTablero();
 		botonPresionado = false;
+		instalarAtajosDiario();
+		if (!listo)
+		{
+			prepararEnSegundoPlano(dificultad);
+		}
+	}
+
+	/**
+	 * Muestra en el titulo de la ventana el nivel de la partida y si esta activo el modo de notas.
+	 */
+	private void actualizarTitulo()
+	{
+		setTitle("SUDOKU : 'Nivel " + InterfazDificultad.getInstancia().getDificultadSeleccionada() + "'" + (modoNotas ? " - Notas" : "")
+				+ (preparando ? " - Preparando tablero..." : ""));
+	}
+
+	/**
+	 * Asocia Ctrl+Z a deshacer la ultima jugada, Ctrl+Y a rehacerla y, si se muestran las notas, Ctrl+N a alternar el modo de notas,
+	 * con el foco en cualquier parte de la ventana.
+	 */
+	private void instalarAtajosDiario()
+	{
+		InputMap teclas = getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+		teclas.put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK), "deshacer");
+		teclas.put(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK), "rehacer");
+		getRootPane().getActionMap().put("deshacer", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				mostrarJugada(Juego_Sudoku.getInstancia().deshacerJugada(), true);
+			}
+		});
+		getRootPane().getActionMap().put("rehacer", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				mostrarJugada(Juego_Sudoku.getInstancia().rehacerJugada(), false);
+			}
+		});
+		if (MOSTRAR_NOTAS)
+		{
+			teclas.put(KeyStroke.getKeyStroke(KeyEvent.VK_N, InputEvent.CTRL_DOWN_MASK), "notas");
+			getRootPane().getActionMap().put("notas", new AbstractAction() {
+				@Override
+				public void actionPerformed(ActionEvent e) {
+					modoNotas = !modoNotas;
+					actualizarTitulo();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Crea el filtro del documento de una casilla. Solo deja escribir un digito del 1 al 9 y anota en el diario cada cambio
+	 * del usuario como una sola jugada: al sobrescribir un numero, Swing borra y luego inserta, pero el filtro ve los dos valores
+	 * en la misma llamada. En el modo de notas, escribir en una casilla vacia alterna el candidato en lugar de ingresarlo.
+	 * @param indice el indice de la casilla, de 0 a 80.
+	 * @return el filtro de la casilla.
+	 */
+	private DocumentFilter crearFiltroCasilla(int indice)
+	{
+		return new DocumentFilter() {
+			@Override
+			public void replace(FilterBypass fb, int offset, int length, String text, AttributeSet attrs) throws BadLocationException {
+				Document doc = fb.getDocument();
+				String currentText = doc.getText(0, doc.getLength());
+				if (modoNotas && grabarJugadas && currentText.isEmpty() && text != null && text.matches("[1-9]")) {
+					cancelarPista();
+					Juego_Sudoku.getInstancia().jugarNota(indice, Integer.parseInt(text));
+					panelTablero.getComponent(indice).repaint();
+					return;
+				}
+				currentText = currentText.substring(0, offset) + text + currentText.substring(offset + length);
+				if (currentText.length() <= 1 && currentText.matches("[1-9]?")) {
+					int anterior = Juego_Sudoku.getInstancia().getValorDado(indice);
+					super.replace(fb, offset, length, text, attrs);
+					registrarJugada(indice, anterior);
+				}
+			}
+
+			@Override
+			public void remove(FilterBypass fb, int offset, int length) throws BadLocationException {
+				int anterior = Juego_Sudoku.getInstancia().getValorDado(indice);
+				super.remove(fb, offset, length);
+				registrarJugada(indice, anterior);
+			}
+		};
+	}
+
+	/**
+	 * Anota en el diario el cambio de una casilla hecho por el usuario, ya aplicado al tablero.
+	 * @param indice el indice de la casilla, de 0 a 80.
+	 * @param anterior el valor de la casilla antes del cambio.
+	 */
+	private void registrarJugada(int indice, int anterior)
+	{
+		if (grabarJugadas)
+		{
+			Juego_Sudoku.getInstancia().registrarJugada(indice, anterior, Juego_Sudoku.getInstancia().getValorDado(indice));
+		}
+	}
+
+	/**
+	 * Muestra en su casilla una jugada que se acaba de deshacer o rehacer en el tablero, sin anotarla de nuevo en el diario.
+	 * @param jugada La jugada empaquetada, o DiarioJugadas.SIN_JUGADA para no hacer nada.
+	 * @param deshecha true si la jugada se ha deshecho, false si se ha rehecho.
+	 */
+	private void mostrarJugada(int jugada, boolean deshecha)
+	{
+		if (jugada == DiarioJugadas.SIN_JUGADA || panelTablero.getComponentCount() < 81)
+		{
+			return;
+		}
+		cancelarPista();
+		int indice = DiarioJugadas.getIndice(jugada);
+		int valor = deshecha ? DiarioJugadas.getAnterior(jugada) : DiarioJugadas.getNuevo(jugada);
+		JTextField textField = (JTextField) panelTablero.getComponent(indice);
+		grabarJugadas = false;
+		textField.setText(valor == 0 ? "" : String.valueOf(valor));
+		grabarJugadas = true;
+		textField.repaint();
 	}
 	
 	/**
@@ -340,12 +516,18 @@ public class Interfaz extends JFrame
 				int enteredValue = Integer.parseInt(texto);
 				int correctValue = Juego_Sudoku.getInstancia().getTablero()[fila][col].getValorBueno();
 
+				// Se guarda el valor antes de comprobar la victoria, que cuenta las casillas llenas
+				Juego_Sudoku.getInstancia().getTablero()[fila][col].setValorDado(enteredValue);
+
 				if (enteredValue != correctValue)
 				{
 					Juego_Sudoku.getInstancia().getTablero()[fila][col].setCorrecto(false);
 					textField.setForeground(Color.RED); // Cambia el color del texto a rojo
-					fallos++;
-					actualizarNumeroFallos();
+					if (grabarJugadas)
+					{
+						fallos++;
+						actualizarNumeroFallos();
+					}
 					textField.setFont(fuente.deriveFont(Font.PLAIN, nuevoTamanoLetra));
 				} else 
 				{
@@ -378,8 +560,6 @@ public class Interfaz extends JFrame
 						delayTimer.start(); // ¡Olvidaste iniciar el temporizador!
 					}
 				}
-
-				Juego_Sudoku.getInstancia().getTablero()[fila][col].setValorDado(enteredValue);
 			} 
 			catch (NumberFormatException e) 
 			{
@@ -388,15 +568,71 @@ public class Interfaz extends JFrame
 				Juego_Sudoku.getInstancia().getTablero()[fila][col].setValorDado(0); // Establecer el valor dado a 0 en caso de error
 			}
 		}
+		if (grabarJugadas)
+		{
+			cancelarPista();
+		}
+		marcarConflictos(fila, col);
 	}
 
 	/**
-	 * Genera un nuevo tablero de Sudoku segun la dificultad seleccionada.
+	 * Prepara un nuevo tablero de Sudoku segun la dificultad seleccionada, tomandolo de la reserva de Sudokus ya generados.
+	 * Si la reserva aun no tiene ninguno, el tablero se prepara en segundo plano y la partida empieza al terminar.
 	 */
 	public void generarNuevoSudokuConDificultad() {
 
-		Juego_Sudoku.crearNuevaInstancia().generarSudokuConDificultad(InterfazDificultad.getInstancia().getDificultadSeleccionada());
+		String dificultad = InterfazDificultad.getInstancia().getDificultadSeleccionada();
+		boolean listo = Juego_Sudoku.crearNuevaInstancia().nuevoSudokuConDificultad(dificultad);
 		updateInterfaz();
+		if (!listo)
+		{
+			prepararEnSegundoPlano(dificultad);
+		}
+	}
+
+	/**
+	 * Prepara fuera del hilo de eventos un tablero de una dificultad: espera a la reserva de Sudokus y, si no entrega ninguno
+	 * a tiempo, lo genera. Mientras tanto la ventana queda deshabilitada y el titulo lo indica. Al terminar se coloca el tablero,
+	 * se reinician el tiempo y los fallos y, si el generador no ha alcanzado el nivel pedido, se avisa al jugador.
+	 * @param dificultad la dificultad del tablero.
+	 */
+	private void prepararEnSegundoPlano(String dificultad)
+	{
+		preparando = true;
+		setEnabled(false);
+		setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+		actualizarTitulo();
+		new SwingWorker<SudokuGenerado, Void>() {
+			@Override
+			protected SudokuGenerado doInBackground() throws InterruptedException {
+				return Juego_Sudoku.prepararSudoku(dificultad, MILIS_ESPERA_RESERVA);
+			}
+
+			@Override
+			protected void done() {
+				preparando = false;
+				setEnabled(true);
+				setCursor(Cursor.getDefaultCursor());
+				actualizarTitulo();
+				SudokuGenerado sudoku;
+				try {
+					sudoku = get();
+				} catch (InterruptedException | ExecutionException e) {
+					e.printStackTrace();
+					JOptionPane.showMessageDialog(Interfaz.this, "Error al preparar el tablero.");
+					return;
+				}
+				Juego_Sudoku.getInstancia().cargarSudoku(sudoku);
+				updateInterfaz();
+				timer.stop();
+				iniciarTemporizador();
+				iniciarFallos();
+				if (!GeneradorSudoku.cumpleNivel(sudoku.getTecnica(), dificultad)) {
+					JOptionPane.showMessageDialog(Interfaz.this, "No se ha podido generar a tiempo un Sudoku de nivel " + dificultad
+							+ ". El tablero es de nivel " + sudoku.getNivel() + ".");
+				}
+			}
+		}.execute();
 	}
 
 	/**
@@ -434,7 +670,79 @@ public class Interfaz extends JFrame
 			drch = 3; // Borde grueso en la ultima columna
 		}
 
-		textField.setBorder(BorderFactory.createMatteBorder(arriba, izq, abajo, drch, Color.DARK_GRAY));
+		// Las casillas cuyo valor se repite en su fila, columna o region se marcan con un borde rojo
+		boolean conflicto = Juego_Sudoku.getInstancia().enConflicto(i * 9 + j);
+		conflictosMarcados[i * 9 + j] = conflicto;
+		textField.setBorder(BorderFactory.createMatteBorder(arriba, izq, abajo, drch, conflicto ? Color.RED : Color.DARK_GRAY));
+	}
+
+	/**
+	 * Actualiza el borde de conflicto de una casilla y de sus 20 vecinas, las unicas cuyo estado puede cambiar
+	 * al modificar esa casilla. Cada comprobacion es O(1) gracias a los contadores del tablero,
+	 * y solo se vuelve a pintar el borde de las casillas cuyo estado ha cambiado.
+	 * Si se muestran las notas, se repintan tambien las vecinas, que son las unicas cuyas notas pueden cambiar.
+	 * @param fila la fila de la casilla modificada.
+	 * @param col la columna de la casilla modificada.
+	 */
+	private void marcarConflictos(int fila, int col)
+	{
+		// Mientras se rellena el tablero aun no estan todos los campos de texto
+		if (panelTablero.getComponentCount() < 81)
+		{
+			return;
+		}
+		int indice = fila * 9 + col;
+		actualizarConflicto(indice);
+		for (int vecina : VecinasSudoku.VECINAS[indice])
+		{
+			actualizarConflicto(vecina);
+			if (MOSTRAR_NOTAS)
+			{
+				panelTablero.getComponent(vecina).repaint();
+			}
+		}
+	}
+
+	/**
+	 * Dibuja las notas de una casilla vacia como numeros pequenos en una cuadricula de 3x3.
+	 * @param g el contexto grafico del campo de texto.
+	 * @param textField el campo de texto de la casilla.
+	 * @param indice el indice de la casilla, de 0 a 80.
+	 */
+	private void pintarNotas(Graphics g, JTextField textField, int indice)
+	{
+		int notas = Juego_Sudoku.getInstancia().getNotas(indice);
+		if (notas == 0)
+		{
+			return;
+		}
+		int ancho = textField.getWidth() / 3;
+		int alto = textField.getHeight() / 3;
+		g.setColor(Color.GRAY);
+		g.setFont(textField.getFont().deriveFont(Font.PLAIN, Math.max(8, alto * 0.8f)));
+		FontMetrics metricas = g.getFontMetrics();
+		for (int valor = 1; valor <= 9; valor++)
+		{
+			if ((notas & (1 << (valor - 1))) != 0)
+			{
+				String texto = String.valueOf(valor);
+				int x = ((valor - 1) % 3) * ancho + (ancho - metricas.stringWidth(texto)) / 2;
+				int y = ((valor - 1) / 3) * alto + (alto + metricas.getAscent() - metricas.getDescent()) / 2;
+				g.drawString(texto, x, y);
+			}
+		}
+	}
+
+	/**
+	 * Vuelve a pintar el borde de una casilla si su estado de conflicto ha cambiado desde la ultima vez que se pinto.
+	 * @param indice el indice de la casilla, de 0 a 80.
+	 */
+	private void actualizarConflicto(int indice)
+	{
+		if (Juego_Sudoku.getInstancia().enConflicto(indice) != conflictosMarcados[indice])
+		{
+			bordesCeldas(indice / 9, indice % 9, (JTextField) panelTablero.getComponent(indice));
+		}
 	}
 
 	/**
@@ -442,25 +750,27 @@ public class Interfaz extends JFrame
 	 */
 	public void rellenarTablero()
 	{
+		// Al cargar una partida el juego ya tiene las notas calculadas, incluidas las que anoto el usuario
+		if (MOSTRAR_NOTAS && !Juego_Sudoku.getInstancia().isNotasAutomaticas())
+		{
+			Juego_Sudoku.getInstancia().setNotasAutomaticas(true);
+		}
+		grabarJugadas = false;
 
-		// Reemplaza el texto en el documento solo si el nuevo texto es un solo digito entre 1 y 9.
-		DocumentFilter filter = new DocumentFilter() {
-			@Override
-			public void replace(FilterBypass fb, int offset, int length, String text, AttributeSet attrs) throws BadLocationException {
-				Document doc = fb.getDocument();
-				String currentText = doc.getText(0, doc.getLength());
-				currentText = currentText.substring(0, offset) + text + currentText.substring(offset + length);
-				if (currentText.length() <= 1 && currentText.matches("[1-9]?")) {
-					super.replace(fb, offset, length, text, attrs);
-				}
-			}
-		};
 		// Vuelve a llenar la interfaz con los numeros del nuevo Sudoku
 		for (int i = 0; i < 9; i++) {
 			for (int j = 0; j < 9; j++) {
 				final int fila = i; // Definir 'fila' como final
 				final int col = j; // Definir 'col' como final
-				JTextField textField = new JTextField();
+				JTextField textField = new JTextField() {
+					@Override
+					protected void paintComponent(Graphics g) {
+						super.paintComponent(g);
+						if (MOSTRAR_NOTAS && getText().isEmpty()) {
+							pintarNotas(g, this, fila * 9 + col);
+						}
+					}
+				};
 				int value = Juego_Sudoku.getInstancia().getTablero()[i][j].getValorDado();
 				if (value != 0) {
 					textField.setText(String.valueOf(value));
@@ -471,7 +781,7 @@ public class Interfaz extends JFrame
 					} 
 				}
 				textField.setHorizontalAlignment(SwingConstants.CENTER);
-				((AbstractDocument) textField.getDocument()).setDocumentFilter(filter);
+				((AbstractDocument) textField.getDocument()).setDocumentFilter(crearFiltroCasilla(fila * 9 + col));
 
 				bordesCeldas(i, j, textField);
 
@@ -509,6 +819,7 @@ public class Interfaz extends JFrame
 				panelTablero.add(textField);
 			}
 		}
+		grabarJugadas = true;
 		panelTablero.revalidate(); // Vuelve a validar el panelTablero para que se muestren los nuevos componentes
 		panelTablero.repaint(); // Repinta el panelTablero para que se muestren los nuevos componentes  
 	}
@@ -553,6 +864,7 @@ public class Interfaz extends JFrame
 	 * Actualiza la interfaz del tablero de Sudoku, limpiando y rellenandolo de nuevo.
 	 */
 	public void updateInterfaz() {
+		cancelarPista();
 		panelTablero.removeAll(); // Elimina los componentes anteriores del panelTablero
 		rellenarTablero();
 	}
@@ -630,6 +942,7 @@ public class Interfaz extends JFrame
 		botonGuardarPartida = new javax.swing.JButton();
 		botonCargarPartida = new javax.swing.JButton();
 		botonSolucionar = new javax.swing.JButton();
+		botonPista = new javax.swing.JButton();
 
 		setDefaultCloseOperation(javax.swing.WindowConstants.EXIT_ON_CLOSE);
 		setMinimumSize(new java.awt.Dimension(990, 800));
@@ -798,6 +1111,20 @@ public class Interfaz extends JFrame
 			}
 		});
 
+		botonPista.setBackground(new java.awt.Color(18, 18, 18));
+		botonPista.setFont(new java.awt.Font("Serif", 0, 18)); // NOI18N
+		botonPista.setForeground(new java.awt.Color(255, 255, 255));
+		botonPista.setText("PISTA");
+		botonPista.setFocusPainted(false);
+		botonPista.setActionCommand("");
+		botonPista.setAlignmentY(0.0F);
+		botonPista.setHorizontalTextPosition(javax.swing.SwingConstants.CENTER);
+		botonPista.addActionListener(new java.awt.event.ActionListener() {
+			public void actionPerformed(java.awt.event.ActionEvent evt) {
+				botonPistaActionPerformed(evt);
+			}
+		});
+
 		javax.swing.GroupLayout panelBotonesLayout = new javax.swing.GroupLayout(panelBotones);
 		panelBotones.setLayout(panelBotonesLayout);
 		panelBotonesLayout.setHorizontalGroup(
@@ -805,6 +1132,7 @@ public class Interfaz extends JFrame
 				.addGroup(panelBotonesLayout.createSequentialGroup()
 						.addContainerGap(27, Short.MAX_VALUE)
 						.addGroup(panelBotonesLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+								.addComponent(botonPista, javax.swing.GroupLayout.PREFERRED_SIZE, 226, javax.swing.GroupLayout.PREFERRED_SIZE)
 								.addComponent(botonSolucionar, javax.swing.GroupLayout.PREFERRED_SIZE, 226, javax.swing.GroupLayout.PREFERRED_SIZE)
 								.addComponent(botonCargarPartida, javax.swing.GroupLayout.PREFERRED_SIZE, 226, javax.swing.GroupLayout.PREFERRED_SIZE)
 								.addComponent(botonGuardarPartida, javax.swing.GroupLayout.PREFERRED_SIZE, 226, javax.swing.GroupLayout.PREFERRED_SIZE)
@@ -816,18 +1144,20 @@ public class Interfaz extends JFrame
 		panelBotonesLayout.setVerticalGroup(
 				panelBotonesLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
 				.addGroup(panelBotonesLayout.createSequentialGroup()
-						.addGap(101, 101, 101)
+						.addGap(60, 60, 60)
 						.addComponent(botonNuevaPartida, javax.swing.GroupLayout.PREFERRED_SIZE, 50, javax.swing.GroupLayout.PREFERRED_SIZE)
-						.addGap(38, 38, 38)
+						.addGap(30, 30, 30)
 						.addComponent(botonNuevoTablero, javax.swing.GroupLayout.PREFERRED_SIZE, 50, javax.swing.GroupLayout.PREFERRED_SIZE)
-						.addGap(38, 38, 38)
+						.addGap(30, 30, 30)
 						.addComponent(botonReiniciarPartida, javax.swing.GroupLayout.PREFERRED_SIZE, 50, javax.swing.GroupLayout.PREFERRED_SIZE)
-						.addGap(38, 38, 38)
+						.addGap(30, 30, 30)
 						.addComponent(botonGuardarPartida, javax.swing.GroupLayout.PREFERRED_SIZE, 50, javax.swing.GroupLayout.PREFERRED_SIZE)
-						.addGap(38, 38, 38)
+						.addGap(30, 30, 30)
 						.addComponent(botonCargarPartida, javax.swing.GroupLayout.PREFERRED_SIZE, 50, javax.swing.GroupLayout.PREFERRED_SIZE)
-						.addGap(38, 38, 38)
+						.addGap(30, 30, 30)
 						.addComponent(botonSolucionar, javax.swing.GroupLayout.PREFERRED_SIZE, 50, javax.swing.GroupLayout.PREFERRED_SIZE)
+						.addGap(30, 30, 30)
+						.addComponent(botonPista, javax.swing.GroupLayout.PREFERRED_SIZE, 50, javax.swing.GroupLayout.PREFERRED_SIZE)
 						.addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
 				);
 
@@ -850,6 +1180,8 @@ public class Interfaz extends JFrame
 	private void botonReiniciarPartidaActionPerformed(ActionEvent evt) 
 	{                                                      
 		botonPresionado = false;
+		cancelarPista();
+		grabarJugadas = false;
 		Component[] components = panelTablero.getComponents();
 		for (Component component : components) 
 		{
@@ -866,6 +1198,14 @@ public class Interfaz extends JFrame
 				}
 			}
 		}
+		grabarJugadas = true;
+		Juego_Sudoku.getInstancia().getDiario().vaciar();
+		if (Juego_Sudoku.getInstancia().isNotasAutomaticas())
+		{
+			// Se borran tambien las notas que habia anotado el usuario
+			Juego_Sudoku.getInstancia().calcularNotas();
+			panelTablero.repaint();
+		}
 		iniciarFallos();
 	}                                                     
 
@@ -929,6 +1269,8 @@ public class Interfaz extends JFrame
 					}
 				}
 				escritorBufferizado.write(Integer.toString(fallos));
+				escritorBufferizado.newLine();
+				Juego_Sudoku.getInstancia().getDiario().escribir(escritorBufferizado);
 				
 				// Cerrar BufferedWriter
 				escritorBufferizado.close();
@@ -957,7 +1299,7 @@ public class Interfaz extends JFrame
 		pausarTemporizador();
 		botonPresionado = false;
 		
-		int contador = 0, fallosAux = 0;
+		int fallosAux = 0;
 		
 		String rutaPartidas = System.getProperty("user.home") + File.separator + "Sudoku";
 		File myFile = new File(rutaPartidas + File.separator + "\\PartidasGuardadas");
@@ -978,7 +1320,7 @@ public class Interfaz extends JFrame
 				BufferedReader lectorBufferizado = new BufferedReader(new FileReader(archivo));
 				String linea;
 
-				while ((linea = lectorBufferizado.readLine()) != null) 
+				if ((linea = lectorBufferizado.readLine()) != null) 
 				{
 					for (int i = 0; i < 9; i++) 
 					{
@@ -994,7 +1336,6 @@ public class Interfaz extends JFrame
 							else
 							{
 								Juego_Sudoku.getInstancia().getTablero()[i][j].setValorBase(true);
-								contador++;
 								Juego_Sudoku.getInstancia().getTablero()[i][j].setValorBueno(numero);
 							}
 							Juego_Sudoku.getInstancia().getTablero()[i][j].setValorDado(numero);
@@ -1004,16 +1345,34 @@ public class Interfaz extends JFrame
 					setFallos(Integer.parseInt(linea));
 				}
 
+				if (Juego_Sudoku.getInstancia().isNotasAutomaticas())
+				{
+					Juego_Sudoku.getInstancia().calcularNotas();
+				}
+
+				// Las partidas guardadas antes de existir el diario no lo tienen y se cargan con el diario vacio
+				if (Juego_Sudoku.getInstancia().getDiario().leer(lectorBufferizado))
+				{
+					Juego_Sudoku.getInstancia().reproducirDiario();
+				}
+
 				fallosAux = getFallos();
 				
-				if(contador == 37)	InterfazDificultad.getInstancia().setDificultadSeleccionada("Facil");
-				else if(contador == 30) InterfazDificultad.getInstancia().setDificultadSeleccionada("Medio");
-				else if(contador == 23) InterfazDificultad.getInstancia().setDificultadSeleccionada("Dificil");
+				// El nivel se deduce de las tecnicas que necesita el tablero, no del numero de pistas
+				InterfazDificultad.getInstancia().setDificultadSeleccionada(Juego_Sudoku.getInstancia().calificarDificultad());
 				
-				setTitle("SUDOKU : 'Nivel " + InterfazDificultad.getInstancia().getDificultadSeleccionada() + "'");
+				actualizarTitulo();
 				lectorBufferizado.close();
 				
-				Juego_Sudoku.getInstancia().resolverSudoku();
+				PresupuestoResolucion presupuesto = new PresupuestoResolucion(PresupuestoResolucion.SIN_LIMITE, MILIS_MAXIMOS_CARGA);
+				if (Juego_Sudoku.getInstancia().resolverSudoku(presupuesto) == MotorResolucion.PRESUPUESTO_AGOTADO)
+				{
+					JOptionPane.showMessageDialog(this, "No se ha podido resolver el Sudoku de la partida. Se generara un nuevo tablero.");
+					generarNuevoSudokuConDificultad();
+					iniciarTemporizador();
+					iniciarFallos();
+					return;
+				}
 				updateInterfaz();
 				iniciarTemporizador();
 				iniciarFallos();
@@ -1040,6 +1399,8 @@ public class Interfaz extends JFrame
 	private void botonSolucionarActionPerformed(ActionEvent evt) 
 	{                                                
 		botonPresionado = true;
+		cancelarPista();
+		grabarJugadas = false;
 		for (int i = 0; i < 9; i++) 
 		{
 			for (int j = 0; j < 9; j++) 
@@ -1048,6 +1409,8 @@ public class Interfaz extends JFrame
 				textField.setText(String.valueOf(Juego_Sudoku.getInstancia().getTablero()[i][j].getValorBueno()));
 			}
 		}
+		grabarJugadas = true;
+		Juego_Sudoku.getInstancia().getDiario().vaciar();
 	}                                               
 
 	/**
@@ -1072,4 +1435,102 @@ public class Interfaz extends JFrame
 		iniciarTemporizador();
 		iniciarFallos();
 	}                                                 
-}
\ No newline at end of file
+
+	/**
+	 * Acciones realizadas al presionar el boton para pedir una pista.
+	 * Si hay casillas con un valor incorrecto se resaltan, porque no se puede deducir nada de ellas; si no, la pista se busca
+	 * en segundo plano y se muestra al terminar, salvo que el jugador escriba antes.
+	 * @param evt evento de accion.
+	 */
+	private void botonPistaActionPerformed(ActionEvent evt) 
+	{
+		cancelarPista();
+		int[] valores = new int[81];
+		int[] incorrectas = new int[81];
+		int numIncorrectas = 0;
+		for (int i = 0; i < 81; i++) 
+		{
+			valores[i] = Juego_Sudoku.getInstancia().getValorDado(i);
+			if (valores[i] != 0 && !Juego_Sudoku.getInstancia().isCorrecto(i)) 
+			{
+				incorrectas[numIncorrectas++] = i;
+			}
+		}
+		if (numIncorrectas > 0) 
+		{
+			resaltarPista(Arrays.copyOf(incorrectas, numIncorrectas), new Color(255, 190, 190), new Color(255, 190, 190));
+			JOptionPane.showMessageDialog(this, "Corrige primero las casillas resaltadas: su valor no es correcto.");
+			return;
+		}
+		botonPista.setEnabled(false);
+		asistentePistas.pedir(valores, this::mostrarPista);
+	}
+
+	/**
+	 * Muestra una pista encontrada en segundo plano: resalta la casilla deducida y las que la justifican e indica la tecnica.
+	 * @param pista la pista, o null si la logica no basta para deducir ninguna casilla.
+	 */
+	private void mostrarPista(Pista pista) 
+	{
+		botonPista.setEnabled(true);
+		if (pista == null) 
+		{
+			JOptionPane.showMessageDialog(this, "No queda ninguna casilla que se pueda deducir solo con logica.");
+			return;
+		}
+		resaltarPista(pista.getCasillas(), new Color(255, 200, 120), new Color(255, 235, 200));
+		JOptionPane.showMessageDialog(this, pista.toString());
+	}
+
+	/**
+	 * Resalta las casillas de una pista, quitando antes el resaltado de la anterior.
+	 * @param casillas los indices de las casillas; la primera se resalta con otro color.
+	 * @param primera color de la primera casilla.
+	 * @param resto color del resto de casillas.
+	 */
+	private void resaltarPista(int[] casillas, Color primera, Color resto) 
+	{
+		quitarPista();
+		if (panelTablero.getComponentCount() < 81) 
+		{
+			return;
+		}
+		for (int k = 0; k < casillas.length; k++) 
+		{
+			panelTablero.getComponent(casillas[k]).setBackground(k == 0 ? primera : resto);
+		}
+		casillasPista = casillas;
+	}
+
+	/**
+	 * Quita el resaltado de la ultima pista, devolviendo a sus casillas el resaltado de la fila y columna seleccionadas.
+	 */
+	private void quitarPista() 
+	{
+		if (casillasPista.length == 0 || panelTablero.getComponentCount() < 81) 
+		{
+			casillasPista = new int[0];
+			return;
+		}
+		Color customColor = new Color(238, 238, 238);
+		for (int i : casillasPista) 
+		{
+			panelTablero.getComponent(i).setBackground(customColor);
+		}
+		casillasPista = new int[0];
+		if (filaSeleccionada != -1 && columnaSeleccionada != -1) 
+		{
+			resaltarFilaColumna(filaSeleccionada, columnaSeleccionada);
+		}
+	}
+
+	/**
+	 * Cancela la pista que se este buscando y quita el resaltado de la ultima, porque el tablero ha cambiado.
+	 */
+	private void cancelarPista() 
+	{
+		asistentePistas.cancelar();
+		botonPista.setEnabled(true);
+		quitarPista();
+	}
+}
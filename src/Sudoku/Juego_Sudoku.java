@@ -1,6 +1,7 @@
 package Sudoku;
 
-import java.util.Random;
+import java.io.IOException;
+import java.nio.file.Paths;
 
 /**
  * La clase Juego_Sudoku extiende de Tablero_Sudoku y gestiona las reglas y logica del juego Sudoku.
@@ -11,20 +12,88 @@ public class Juego_Sudoku extends Tablero_Sudoku
 	 * Instancia unica de la clase Juego_Sudoku.
 	 */
 	private static Juego_Sudoku instancia;
+
+	/**
+	 * Numero maximo de Sudokus que guarda la cache de soluciones.
+	 */
+	private static final int CAPACIDAD_CACHE = 1024;
+
+	/**
+	 * Cache de soluciones compartida por todos los juegos, de modo que al cargar o volver a comprobar
+	 * un Sudoku ya resuelto no se repite la busqueda.
+	 */
+	private static final CacheSoluciones CACHE = new CacheSoluciones(CAPACIDAD_CACHE);
+
+	/**
+	 * Reserva de Sudokus generados en segundo plano; se crea e inicia la primera vez que se pide.
+	 * Su profundidad se puede cambiar con la propiedad del sistema sudoku.reserva.
+	 */
+	private static ReservaSudokus reserva;
+
+	/**
+	 * Banco de Sudokus indicado con la propiedad del sistema sudoku.banco, o null si no se indica o no se puede abrir.
+	 */
+	private static BancoSudokus banco;
+
+	/**
+	 * Indica si ya se intento abrir el banco de Sudokus.
+	 */
+	private static boolean bancoAbierto;
 	
 	/**
-	 * Almacena la primera solucion encontrada del Sudoku.
-	 * Se utiliza para comparar con otras soluciones potenciales y determinar si hay mas de una solucion para el Sudoku.
+	 * Almacena la primera solucion encontrada por el motor en la ultima busqueda, recorrida fila a fila.
+	 */
+	private final int[] solucion;
+
+	/**
+	 * Generador de Sudokus por rellenado y vaciado.
+	 */
+	private final GeneradorSudoku generador;
+
+	/**
+	 * Motor de resolucion seleccionado para resolver el Sudoku y comprobar si su solucion es unica.
+	 */
+	private MotorResolucion resolutor;
+
+	/**
+	 * Calificador que mide la dificultad del Sudoku por las tecnicas humanas que necesita.
+	 */
+	private final CalificadorDificultad calificador;
+
+	/**
+	 * Indica si las busquedas de soluciones consultan la cache compartida.
+	 */
+	private boolean usarCache;
+
+	/**
+	 * Contadores de la ultima busqueda de soluciones, incluido su tiempo.
 	 */
-	private Celda[][] primeraSolucion;
+	private final EstadisticasResolucion estadisticas;
+
+	/**
+	 * Contadores acumulados de todas las busquedas de soluciones de este juego.
+	 */
+	private final EstadisticasResolucion estadisticasAcumuladas;
+
+	/**
+	 * Diario de las jugadas de la partida, para deshacerlas, rehacerlas y reconstruir el tablero al cargarla.
+	 */
+	private final DiarioJugadas diario;
 
 	/**
 	 * Constructor de la clase Juego_Sudoku.
-	 * Inicializa la instancia con una solucion inicial nula, indicando que aun no se ha encontrado una solucion para el Sudoku.
+	 * Inicializa los motores de generacion y de resolucion del Sudoku.
 	 */
 	public Juego_Sudoku() 
 	{
-		primeraSolucion = null;
+		solucion = new int[81];
+		generador = new GeneradorSudoku();
+		resolutor = new MotorBitmask();
+		calificador = new CalificadorDificultad();
+		usarCache = true;
+		estadisticas = new EstadisticasResolucion();
+		estadisticasAcumuladas = new EstadisticasResolucion();
+		diario = new DiarioJugadas();
 	}
 
 	/**
@@ -51,22 +120,143 @@ public class Juego_Sudoku extends Tablero_Sudoku
 	// Metodos de logica del juego
 
 	/**
-	 * Comprueba si el tablero de Sudoku esta resuelto.
-	 * @return true si el tablero esta completamente resuelto, false de lo contrario.
+	 * Obtiene el diario de jugadas de la partida.
+	 * @return el diario de jugadas.
 	 */
-	public boolean resuelto() 
+	public DiarioJugadas getDiario()
 	{
-		for (int i = 0; i < 9; i++) 
+		return diario;
+	}
+
+	/**
+	 * Anota en el diario una jugada ya aplicada al tablero. No anota nada si el valor no ha cambiado.
+	 * @param indice El indice de la casilla, de 0 a 80.
+	 * @param anterior El valor de la casilla antes de la jugada, 0 si estaba vacia.
+	 * @param nuevo El valor de la casilla despues de la jugada, 0 si ha quedado vacia.
+	 */
+	public void registrarJugada(int indice, int anterior, int nuevo)
+	{
+		if (anterior != nuevo)
+		{
+			diario.registrar(DiarioJugadas.codificar(indice, anterior, nuevo, 0));
+		}
+	}
+
+	/**
+	 * Anota o borra un candidato de una casilla y lo anota en el diario.
+	 * @param indice El indice de la casilla, de 0 a 80.
+	 * @param valor El numero, de 1 a 9.
+	 * @return true si la nota ha cambiado, false si no se podia anotar porque el numero ya esta en una de sus unidades.
+	 */
+	public boolean jugarNota(int indice, int valor)
+	{
+		if (!alternarNota(indice, valor))
+		{
+			return false;
+		}
+		int dado = getValorDado(indice);
+		diario.registrar(DiarioJugadas.codificar(indice, dado, dado, 1 << (valor - 1)));
+		return true;
+	}
+
+	/**
+	 * Deshace la ultima jugada aplicada: devuelve la casilla a su valor anterior y vuelve a alternar las notas de la jugada.
+	 * @return la jugada deshecha, o DiarioJugadas.SIN_JUGADA si no quedaba ninguna.
+	 */
+	public int deshacerJugada()
+	{
+		int jugada = diario.deshacer();
+		if (jugada != DiarioJugadas.SIN_JUGADA)
 		{
-			for (int j = 0; j < 9; j++) 
+			aplicarJugada(jugada, DiarioJugadas.getAnterior(jugada));
+		}
+		return jugada;
+	}
+
+	/**
+	 * Rehace la ultima jugada deshecha.
+	 * @return la jugada rehecha, o DiarioJugadas.SIN_JUGADA si no quedaba ninguna.
+	 */
+	public int rehacerJugada()
+	{
+		int jugada = diario.rehacer();
+		if (jugada != DiarioJugadas.SIN_JUGADA)
+		{
+			aplicarJugada(jugada, DiarioJugadas.getNuevo(jugada));
+		}
+		return jugada;
+	}
+
+	/**
+	 * Aplica una jugada al tablero en un sentido u otro. Como alternar una nota es su propia inversa, las notas se alternan igual al deshacer y al rehacer.
+	 * @param jugada La jugada empaquetada.
+	 * @param valor El valor que debe quedar en la casilla.
+	 */
+	private void aplicarJugada(int jugada, int valor)
+	{
+		int indice = DiarioJugadas.getIndice(jugada);
+		setValorDado(indice, valor);
+		for (int notas = DiarioJugadas.getNotas(jugada); notas != 0; notas &= notas - 1)
+		{
+			alternarNota(indice, Integer.numberOfTrailingZeros(notas) + 1);
+		}
+	}
+
+	/**
+	 * Reconstruye las jugadas del tablero a partir del diario: vacia las casillas que no son pistas y aplica las jugadas
+	 * hasta la posicion actual, en O(81) mas una operacion por jugada.
+	 * Las notas se recalculan tras vaciar las casillas, de modo que las que anoto el usuario se recuperan de las jugadas de notas.
+	 * Si el resultado no coincide con los valores que tenia el tablero, porque el diario no recoge todas sus jugadas,
+	 * se conservan esos valores y se vacia el diario.
+	 * @return true si el tablero se ha reconstruido desde el diario, false si se ha conservado.
+	 */
+	public boolean reproducirDiario()
+	{
+		int[] guardados = new int[81];
+		for (int i = 0; i < 81; i++)
+		{
+			guardados[i] = getValorDado(i);
+			if (!isBase(i))
 			{
-				if (!this.getTablero()[i][j].isCorrecto()) 
-				{
-					return false;
-				}
+				setValorDado(i, 0);
 			}
 		}
-		return true;
+		if (isNotasAutomaticas())
+		{
+			calcularNotas();
+		}
+		for (int k = 0; k < diario.getPosicion(); k++)
+		{
+			aplicarJugada(diario.getJugada(k), DiarioJugadas.getNuevo(diario.getJugada(k)));
+		}
+		boolean coincide = true;
+		for (int i = 0; i < 81 && coincide; i++)
+		{
+			coincide = getValorDado(i) == guardados[i];
+		}
+		if (!coincide)
+		{
+			for (int i = 0; i < 81; i++)
+			{
+				setValorDado(i, guardados[i]);
+			}
+			diario.vaciar();
+			if (isNotasAutomaticas())
+			{
+				calcularNotas();
+			}
+		}
+		return coincide;
+	}
+
+	/**
+	 * Comprueba si el tablero de Sudoku esta resuelto: todas las casillas llenas y marcadas como correctas.
+	 * Usa los contadores que el tablero mantiene en cada jugada, por lo que no recorre las 81 casillas.
+	 * @return true si el tablero esta completamente resuelto, false de lo contrario.
+	 */
+	public boolean resuelto() 
+	{
+		return getNumLlenas() == 81 && getNumCorrectas() == 81;
 	}
 
 	/**
@@ -80,9 +270,9 @@ public class Juego_Sudoku extends Tablero_Sudoku
 	{
 		for (int j = 0; j < 9; j++) 
 		{
-			if (this.getTablero()[fila][j].getValorBueno() == num && j != columna) 
+			if (getValorBueno(fila * 9 + j) == num && j != columna) 
 			{
-				this.getTablero()[fila][columna].setCorrecto(false);
+				setCorrecto(fila * 9 + columna, false);
 				return false;
 			}
 		}
@@ -100,9 +290,9 @@ public class Juego_Sudoku extends Tablero_Sudoku
 	{
 		for (int i = 0; i < 9; i++) 
 		{
-			if (this.getTablero()[i][columna].getValorBueno() == num && i != fila) 
+			if (getValorBueno(i * 9 + columna) == num && i != fila) 
 			{
-				this.getTablero()[fila][columna].setCorrecto(false);
+				setCorrecto(fila * 9 + columna, false);
 				return false;
 			}
 		}
@@ -124,7 +314,7 @@ public class Juego_Sudoku extends Tablero_Sudoku
 		{
 			for (int j = cuadranteColumna; j < cuadranteColumna + 3; j++) 
 			{
-				if (getTablero()[i][j].getValorBueno() == num && i != fila && j != columna) 
+				if (getValorBueno(i * 9 + j) == num && i != fila && j != columna) 
 				{
 					return false;
 				}
@@ -134,202 +324,378 @@ public class Juego_Sudoku extends Tablero_Sudoku
 	}
 
 	/**
-	 * Resuelve el Sudoku verificando si hay multiples soluciones. 
-	 * Utiliza un enfoque recursivo de backtracking para encontrar una solucion y luego verifica si hay otra.
-	 * Almacena temporalmente la primera solucion encontrada para compararla con siguientes soluciones.
-	 * @return true si el Sudoku tiene una unica solucion, false si tiene multiples soluciones o no se puede resolver.
+	 * Obtiene el motor de resolucion utilizado por el juego.
+	 * @return el motor de resolucion seleccionado.
 	 */
-	public boolean resolverSudoku() 
+	public MotorResolucion getResolutor() 
 	{
-		if (primeraSolucion == null) 
-		{
-			if (resolverYGuardar(0, 0)) 
-			{
-				primeraSolucion = copiarTablero(getTablero());
-				return resolverSudoku();
-			}
-			return false;
-		} else {
-			if (resolverYComparar(0, 0)) 
-			{
-				primeraSolucion = null;
-				return false;
-			}
-			primeraSolucion = null;
-			return true;
-		}
+		return resolutor;
 	}
 
 	/**
-	 * Resuelve el Sudoku recursivamente y guarda la primera solucion encontrada.
-	 * Este metodo implementa la tecnica de backtracking para probar diferentes combinaciones de numeros.
-	 * @param fila La fila actual en la que se esta trabajando.
-	 * @param columna La columna actual en la que se esta trabajando.
-	 * @return true si se encuentra una solucion valida, false de lo contrario.
+	 * Selecciona el motor de resolucion utilizado por el juego, por ejemplo MotorBitmask o MotorDLX.
+	 * @param resolutor El motor de resolucion a utilizar.
 	 */
-	private boolean resolverYGuardar(int fila, int columna) 
+	public void setResolutor(MotorResolucion resolutor) 
 	{
-		if (fila == 9) 
-		{
-			return true; // Se encontro una solucion
-		}
-
-		int siguienteFila = fila;
-		int siguienteColumna = columna + 1;
+		this.resolutor = resolutor;
+	}
 
-		if (siguienteColumna == 9) 
-		{
-			siguienteFila++;
-			siguienteColumna = 0;
-		}
+	/**
+	 * Obtiene la cache de soluciones compartida, por ejemplo para consultar su tasa de aciertos.
+	 * @return la cache de soluciones.
+	 */
+	public static CacheSoluciones getCacheSoluciones()
+	{
+		return CACHE;
+	}
 
-		if (getTablero()[fila][columna].getValorBueno() != 0) 
+	/**
+	 * Obtiene la reserva de Sudokus compartida, creandola e iniciando sus hilos si aun no existe.
+	 * @return la reserva de Sudokus.
+	 */
+	public static synchronized ReservaSudokus getReserva()
+	{
+		if (reserva == null)
 		{
-			return resolverYGuardar(siguienteFila, siguienteColumna);
+			// Una profundidad menor que 1 no es valida y se trata igual que un valor que no es un numero
+			int profundidad = Integer.getInteger("sudoku.reserva", ReservaSudokus.PROFUNDIDAD_POR_DEFECTO);
+			reserva = new ReservaSudokus(profundidad >= 1 ? profundidad : ReservaSudokus.PROFUNDIDAD_POR_DEFECTO);
+			reserva.iniciar();
 		}
+		return reserva;
+	}
 
-		for (int num = 1; num <= 9; num++) 
+	/**
+	 * Obtiene el banco de Sudokus indicado con la propiedad del sistema sudoku.banco, abriendolo la primera vez que se pide.
+	 * @return el banco de Sudokus, o null si no se ha indicado ninguno o no se ha podido abrir.
+	 */
+	public static synchronized BancoSudokus getBanco()
+	{
+		if (!bancoAbierto)
 		{
-			if (posicionValidaFila(fila, columna, num) && posicionValidaColumna(fila, columna, num) && posicionValida3x3(fila, columna, num)) 
+			bancoAbierto = true;
+			String ruta = System.getProperty("sudoku.banco");
+			if (ruta != null)
 			{
-				getTablero()[fila][columna].setValorBueno(num);
-				if (resolverYGuardar(siguienteFila, siguienteColumna)) 
+				try
+				{
+					banco = new BancoSudokus(Paths.get(ruta));
+				}
+				catch (IOException e)
 				{
-					return true;
+					System.err.println("No se ha podido abrir el banco de Sudokus: " + e.getMessage());
 				}
-				getTablero()[fila][columna].setValorBueno(0); // Backtracking
 			}
 		}
-		return false;
+		return banco;
 	}
 
 	/**
-	 * Resuelve el Sudoku recursivamente y compara la solucion encontrada con la primera solucion almacenada.
-	 * Este metodo se utiliza para determinar si hay mas de una solucion posible para el Sudoku.
-	 * @param fila La fila actual en la que se esta trabajando.
-	 * @param columna La columna actual en la que se esta trabajando.
-	 * @return true si se encuentra una solucion diferente a la primera, false de lo contrario.
+	 * Indica si las busquedas de soluciones de este juego consultan la cache compartida.
+	 * Las pruebas de rendimiento la desactivan para medir siempre la busqueda completa.
+	 * @param usarCache true para consultar la cache, false para buscar siempre.
 	 */
-	private boolean resolverYComparar(int fila, int columna) 
+	public void setUsarCache(boolean usarCache)
 	{
-		if (fila == 9) 
+		this.usarCache = usarCache;
+	}
+
+	/**
+	 * Resuelve el Sudoku verificando si hay multiples soluciones. 
+	 * Busca como mucho dos soluciones en un unico recorrido y guarda la primera en los valores buenos del tablero.
+	 * @return true si el Sudoku tiene una unica solucion, false si tiene multiples soluciones o no se puede resolver.
+	 */
+	public boolean resolverSudoku() 
+	{
+		return resolverSudoku(null) == 1;
+	}
+
+	/**
+	 * Resuelve el Sudoku dentro de un presupuesto de nodos o de tiempo, buscando como mucho dos soluciones.
+	 * Si se encuentra alguna solucion se guarda la primera en los valores buenos del tablero.
+	 * @param presupuesto El presupuesto de la busqueda, o null si no tiene limite.
+	 * @return el numero de soluciones encontradas (0, 1 o 2), o MotorResolucion.PRESUPUESTO_AGOTADO si se agoto el presupuesto.
+	 */
+	public int resolverSudoku(PresupuestoResolucion presupuesto) 
+	{
+		int encontradas = contarSoluciones(2, presupuesto);
+		if (encontradas > 0) 
 		{
-			return !esIgualAPrimeraSolucion(); // Compara con la primera solucion
+			volcarSolucion(solucion);
 		}
+		return encontradas;
+	}
 
-		int siguienteFila = fila;
-		int siguienteColumna = columna + 1;
+	/**
+	 * Cuenta las soluciones del Sudoku a partir de los valores buenos del tablero, sin modificarlo.
+	 * La busqueda se detiene en cuanto se alcanza el limite, por lo que con limite 2 basta para saber si la solucion es unica.
+	 * @param limite El numero de soluciones a partir del cual se detiene la busqueda.
+	 * @return el numero de soluciones encontradas, como maximo el limite indicado.
+	 */
+	public int contarSoluciones(int limite) 
+	{
+		return contarSoluciones(limite, null);
+	}
 
-		if (siguienteColumna == 9) 
+	/**
+	 * Cuenta las soluciones del Sudoku sin modificarlo, deteniendose si se agota el presupuesto.
+	 * Si el Sudoku ya esta en la cache de soluciones se responde sin buscar; las busquedas completas
+	 * con limite CacheSoluciones.LIMITE_SOLUCIONES se guardan en ella.
+	 * @param limite El numero de soluciones a partir del cual se detiene la busqueda.
+	 * @param presupuesto El presupuesto de la busqueda, o null si no tiene limite.
+	 * @return el numero de soluciones encontradas, o MotorResolucion.PRESUPUESTO_AGOTADO si se agoto el presupuesto.
+	 */
+	public int contarSoluciones(int limite, PresupuestoResolucion presupuesto) 
+	{
+		int[] valores = leerValoresBuenos();
+		if (!usarCache || limite > CacheSoluciones.LIMITE_SOLUCIONES) 
 		{
-			siguienteFila++;
-			siguienteColumna = 0;
+			return buscarSoluciones(valores, limite, presupuesto);
 		}
 
-		if (getTablero()[fila][columna].getValorBueno() != 0) 
+		String clave = CacheSoluciones.clave(valores);
+		int encontradas = CACHE.consultar(clave, limite, solucion);
+		if (encontradas != CacheSoluciones.NO_ENCONTRADO) 
+		{
+			estadisticas.reiniciar();
+			return encontradas;
+		}
+		encontradas = buscarSoluciones(valores, limite, presupuesto);
+		if (limite == CacheSoluciones.LIMITE_SOLUCIONES && encontradas != MotorResolucion.PRESUPUESTO_AGOTADO) 
 		{
-			return resolverYComparar(siguienteFila, siguienteColumna);
+			CACHE.guardar(clave, encontradas, solucion);
 		}
+		return encontradas;
+	}
 
-		for (int num = 1; num <= 9; num++) 
+	/**
+	 * Busca las soluciones del Sudoku con el motor de resolucion, midiendo la busqueda y emitiendo su evento de JFR.
+	 * @param valores Los valores de las 81 casillas.
+	 * @param limite El numero de soluciones a partir del cual se detiene la busqueda.
+	 * @param presupuesto El presupuesto de la busqueda, o null si no tiene limite.
+	 * @return el numero de soluciones encontradas, o MotorResolucion.PRESUPUESTO_AGOTADO si se agoto el presupuesto.
+	 */
+	private int buscarSoluciones(int[] valores, int limite, PresupuestoResolucion presupuesto) 
+	{
+		EventoResolucion evento = new EventoResolucion();
+		evento.begin();
+		long inicio = System.nanoTime();
+		int encontradas = resolutor.resolver(valores, limite, solucion, presupuesto);
+		long nanos = System.nanoTime() - inicio;
+		evento.end();
+
+		estadisticas.reiniciar();
+		estadisticas.acumular(resolutor.getEstadisticas());
+		estadisticas.setNanos(nanos);
+		estadisticasAcumuladas.acumular(estadisticas);
+
+		if (evento.shouldCommit())
 		{
-			if (posicionValidaFila(fila, columna, num) && posicionValidaColumna(fila, columna, num) && posicionValida3x3(fila, columna, num)) 
-			{
-				getTablero()[fila][columna].setValorBueno(num);
-				if (resolverYComparar(siguienteFila, siguienteColumna)) 
-				{
-					return true;
-				}
-				getTablero()[fila][columna].setValorBueno(0); // Backtracking
-			}
+			evento.motor = resolutor.getClass().getSimpleName();
+			evento.soluciones = encontradas;
+			evento.nodos = estadisticas.getNodos();
+			evento.retrocesos = estadisticas.getRetrocesos();
+			evento.candidatosProbados = estadisticas.getCandidatosProbados();
+			evento.deducciones = estadisticas.getDeducciones();
+			evento.profundidadMaxima = estadisticas.getProfundidadMaxima();
+			evento.commit();
 		}
-		return false;
+		return encontradas;
 	}
 
 	/**
-	 * Compara el tablero actual de Sudoku con la primera solucion almacenada para verificar si son iguales.
-	 * @return true si el tablero actual es igual a la primera solucion, false de lo contrario.
+	 * Obtiene los contadores de la ultima busqueda de soluciones: nodos, retrocesos, profundidad maxima,
+	 * candidatos probados, deducciones y tiempo.
+	 * @return las estadisticas de la ultima busqueda.
 	 */
-	private boolean esIgualAPrimeraSolucion() 
+	public EstadisticasResolucion getEstadisticas()
 	{
-		for (int i = 0; i < 9; i++) 
+		return estadisticas;
+	}
+
+	/**
+	 * Obtiene los contadores acumulados de todas las busquedas de soluciones de este juego,
+	 * por ejemplo de todos los intentos de una llamada a generarSudokuConDificultad.
+	 * @return las estadisticas acumuladas.
+	 */
+	public EstadisticasResolucion getEstadisticasAcumuladas()
+	{
+		return estadisticasAcumuladas;
+	}
+
+	/**
+	 * Califica el Sudoku a partir de sus casillas base por la tecnica humana mas dificil que necesita.
+	 * @return la tecnica mas dificil necesaria para resolver el Sudoku.
+	 */
+	public TecnicaResolucion calificarSudoku() 
+	{
+		return calificador.calificar(leerPistas());
+	}
+
+	/**
+	 * Calcula el nivel de dificultad del Sudoku a partir de sus casillas base.
+	 * @return "Facil", "Medio" o "Dificil".
+	 */
+	public String calificarDificultad() 
+	{
+		return calificarSudoku().getNivel();
+	}
+
+	/**
+	 * Lee las casillas base del tablero en un array de 81 posiciones recorrido fila a fila.
+	 * @return los valores de las casillas base, 0 en el resto de casillas.
+	 */
+	private int[] leerPistas() 
+	{
+		int[] pistas = new int[81];
+		for (int i = 0; i < 81; i++) 
 		{
-			for (int j = 0; j < 9; j++) 
+			if (isBase(i)) 
 			{
-				if (this.getTablero()[i][j].getValorBueno() != primeraSolucion[i][j].getValorBueno()) 
-				{
-					return false;
-				}
+				pistas[i] = getValorBueno(i);
 			}
 		}
-		return true;
+		return pistas;
 	}
 
 	/**
-	 * Crea y devuelve una copia del tablero de Sudoku actual.
-	 * Este metodo se utiliza para almacenar una copia de la solucion encontrada.
-	 * @param tablero El tablero de Sudoku a copiar.
-	 * @return Una copia del tablero de Sudoku.
+	 * Lee los valores buenos del tablero en un array de 81 posiciones recorrido fila a fila.
+	 * @return los valores buenos del tablero, 0 en las casillas vacias.
 	 */
-	private Celda[][] copiarTablero(Celda[][] tablero) 
+	private int[] leerValoresBuenos() 
 	{
-		Celda[][] copia = new Celda[tablero.length][tablero[0].length];
-		for (int i = 0; i < tablero.length; i++) 
+		byte[] buenos = getValoresBuenos();
+		int[] valores = new int[81];
+		for (int i = 0; i < 81; i++) 
 		{
-			for (int j = 0; j < tablero[i].length; j++) 
-			{
-				copia[i][j] = new Celda();
-				copia[i][j].setValorBueno(tablero[i][j].getValorBueno());
-			}
+			valores[i] = buenos[i];
+		}
+		return valores;
+	}
+
+	/**
+	 * Vuelca en los valores buenos del tablero una solucion encontrada por el motor.
+	 * @param solucion Los valores de las 81 casillas de la solucion.
+	 */
+	private void volcarSolucion(int[] solucion) 
+	{
+		for (int i = 0; i < 81; i++) 
+		{
+			setValorBueno(i, solucion[i]);
 		}
-		return copia;
 	}
 
 	/**
 	 * Genera un tablero de Sudoku con una dificultad especificada.
+	 * Se parte de un tablero completo aleatorio y se quitan pistas mientras la solucion sea unica
+	 * y las tecnicas humanas que necesita no superen el nivel pedido. El generador lo intenta con un numero acotado de tableros,
+	 * asi que el Sudoku puede quedar mas facil; quien llama lo comprueba con GeneradorSudoku.cumpleNivel.
 	 * @param dificultadSeleccionada La dificultad del tablero a generar.
+	 * @return la tecnica mas dificil que necesita el Sudoku generado.
 	 */
-	public void generarSudokuConDificultad(String dificultadSeleccionada) 
+	public TecnicaResolucion generarSudokuConDificultad(String dificultadSeleccionada) 
 	{
-		int dificultad = 0;
+		int[] pistas = new int[81];
+		TecnicaResolucion tecnica = generador.generar(dificultadSeleccionada, pistas, solucion);
+		cargarSudoku(pistas, solucion);
+		return tecnica;
+	}
 
-		if(dificultadSeleccionada == "Facil")
+	/**
+	 * Genera el Sudoku numero indice de una semilla con una dificultad especificada.
+	 * El mismo trio de dificultad, semilla e indice produce siempre el mismo tablero, por lo que basta guardarlo para regenerarlo.
+	 * Por eso se carga aunque no alcance el nivel pedido; quien llama lo comprueba con GeneradorSudoku.cumpleNivel.
+	 * @param dificultadSeleccionada La dificultad del tablero a generar.
+	 * @param semilla La semilla de la serie de Sudokus.
+	 * @param indice La posicion del Sudoku dentro de la serie, desde 0.
+	 * @return la tecnica mas dificil que necesita el Sudoku generado.
+	 */
+	public TecnicaResolucion generarSudokuConDificultad(String dificultadSeleccionada, long semilla, long indice) 
+	{
+		int[] pistas = new int[81];
+		TecnicaResolucion tecnica = generador.generar(dificultadSeleccionada, semilla, indice, pistas, solucion);
+		cargarSudoku(pistas, solucion);
+		return tecnica;
+	}
+
+	/**
+	 * Prepara un tablero de Sudoku con una dificultad especificada sin generar nada en el hilo que lo pide.
+	 * Lo toma del banco de Sudokus, si se ha indicado uno y tiene Sudokus de ese nivel, o si no de la reserva compartida,
+	 * que si esta vacia lo deriva por simetria del ultimo Sudoku servido.
+	 * @param dificultadSeleccionada La dificultad del tablero.
+	 * @return true si se ha colocado un Sudoku del nivel pedido, false si aun no hay ninguno y el tablero no ha cambiado;
+	 * en ese caso se obtiene con prepararSudoku fuera del hilo de eventos.
+	 */
+	public boolean nuevoSudokuConDificultad(String dificultadSeleccionada) 
+	{
+		BancoSudokus bancoSudokus = getBanco();
+		SudokuGenerado sudoku = bancoSudokus != null ? bancoSudokus.tomar(dificultadSeleccionada) : null;
+		if (sudoku == null || !GeneradorSudoku.cumpleNivel(sudoku.getTecnica(), dificultadSeleccionada)) 
 		{
-			dificultad = 37;
-		} 
-		else if(dificultadSeleccionada == "Medio")
+			sudoku = getReserva().tomar(dificultadSeleccionada);
+		}
+		if (sudoku == null || !GeneradorSudoku.cumpleNivel(sudoku.getTecnica(), dificultadSeleccionada)) 
 		{
-			dificultad = 30;
-		} 
-		else if(dificultadSeleccionada == "Dificil")
+			return false;
+		}
+		cargarSudoku(sudoku);
+		return true;
+	}
+
+	/**
+	 * Obtiene un Sudoku de una dificultad sin tocar ningun tablero, para llamarlo fuera del hilo de eventos.
+	 * Espera a la reserva como mucho el tiempo indicado y, si no entrega ninguno, lo genera con un generador propio,
+	 * que tras GeneradorSudoku.MAX_INTENTOS tableros puede devolver uno mas facil.
+	 * @param dificultadSeleccionada La dificultad del Sudoku.
+	 * @param milis Milisegundos maximos de espera a la reserva.
+	 * @return el Sudoku; su nivel se comprueba con GeneradorSudoku.cumpleNivel.
+	 * @throws InterruptedException si se interrumpe la espera.
+	 */
+	public static SudokuGenerado prepararSudoku(String dificultadSeleccionada, long milis) throws InterruptedException
+	{
+		SudokuGenerado sudoku = getReserva().esperar(dificultadSeleccionada, milis);
+		if (sudoku != null) 
 		{
-			dificultad = 23;
+			return sudoku;
 		}
+		int[] pistas = new int[81];
+		int[] solucion = new int[81];
+		TecnicaResolucion tecnica = new GeneradorSudoku().generar(dificultadSeleccionada, pistas, solucion);
+		return new SudokuGenerado(pistas, solucion, tecnica);
+	}
 
-		Random random = new Random();
-		int cont = 0;
-		do {
-			if(cont > 0)
-			{
-				this.setTablero(Juego_Sudoku.crearNuevaInstancia().getTablero());
-			}
+	/**
+	 * Coloca en el tablero un Sudoku ya generado.
+	 * @param sudoku El Sudoku, con sus pistas y su solucion unica.
+	 */
+	public void cargarSudoku(SudokuGenerado sudoku) 
+	{
+		cargarSudoku(sudoku.getPistas(), sudoku.getSolucion());
+	}
 
-			for (int i = 0; i < dificultad; i++) 
+	/**
+	 * Coloca en el tablero un Sudoku del que ya se conocen las pistas y la solucion unica, y guarda esta en la cache.
+	 * @param pistas Las pistas de las 81 casillas, 0 en las casillas vacias.
+	 * @param solucion La solucion de las 81 casillas.
+	 */
+	private void cargarSudoku(int[] pistas, int[] solucion) 
+	{
+		this.vaciar();
+		diario.vaciar();
+		for (int i = 0; i < 81; i++) 
+		{
+			setValorBueno(i, solucion[i]);
+			if (pistas[i] != 0) 
 			{
-				int fila = random.nextInt(9);
-				int columna = random.nextInt(9);
-				int numero = random.nextInt(9) + 1;
-
-				if (this.getTablero()[fila][columna].getValorBueno() == 0 && posicionValidaFila(fila, columna, numero) && posicionValidaColumna(fila, columna, numero) && posicionValida3x3(fila, columna, numero)) 
-				{
-					getTablero()[fila][columna].setValorBueno(numero);
-					getTablero()[fila][columna].setValorDado(numero);
-					getTablero()[fila][columna].setValorBase(true);
-				} else {
-					i--;
-				}
+				setValorDado(i, pistas[i]);
+				setValorBase(i, true);
 			}
-			cont ++;
-		} while (!resolverSudoku());
+		}
+
+		if (usarCache) 
+		{
+			CACHE.guardar(CacheSoluciones.clave(pistas), 1, solucion);
+		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,569 @@
+package Sudoku;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Nucleo de resolucion del Sudoku basado en mascaras de bits.
+ * Cada fila, columna y region 3x3 guarda una mascara de 9 bits con los numeros ya colocados,
+ * de forma que los candidatos de una casilla se obtienen con una sola operacion OR y NOT
+ * y colocar o quitar un numero tiene coste constante.
+ * La busqueda deduce primero los singles desnudos y ocultos y solo ramifica en la casilla con menos candidatos.
+ */
+public class MotorBitmask implements MotorResolucion
+{
+	/**
+	 * Mascara con los 9 bits encendidos, uno por cada numero del 1 al 9.
+	 */
+	public static final int TODOS = 0x1FF;
+
+	/**
+	 * Resultado de simplificar un tablero que ya no tiene casillas vacias.
+	 */
+	public static final int TABLERO_COMPLETO = -1;
+
+	/**
+	 * Resultado de simplificar un tablero en el que la propagacion encuentra una contradiccion.
+	 */
+	public static final int CONTRADICCION = -2;
+
+	/**
+	 * Indices de las casillas de cada una de las 27 unidades: 9 filas, 9 columnas y 9 regiones.
+	 */
+	static final int[][] UNIDADES = new int[27][9];
+
+	static
+	{
+		for (int i = 0; i < 9; i++)
+		{
+			for (int j = 0; j < 9; j++)
+			{
+				UNIDADES[i][j] = i * 9 + j;
+				UNIDADES[9 + i][j] = j * 9 + i;
+				UNIDADES[18 + i][j] = ((i / 3) * 3 + j / 3) * 9 + (i % 3) * 3 + j % 3;
+			}
+		}
+	}
+
+	/**
+	 * Valores de las 81 casillas recorridas fila a fila, 0 si la casilla esta vacia.
+	 */
+	private final int[] celdas;
+
+	/**
+	 * Mascara de numeros ocupados en cada fila.
+	 */
+	private final int[] filas;
+
+	/**
+	 * Mascara de numeros ocupados en cada columna.
+	 */
+	private final int[] columnas;
+
+	/**
+	 * Mascara de numeros ocupados en cada region 3x3.
+	 */
+	private final int[] regiones;
+
+	/**
+	 * Casillas rellenadas durante la busqueda, en orden, para poder deshacerlas al retroceder.
+	 */
+	private final int[] rastro;
+
+	/**
+	 * Numero de casillas guardadas en el rastro.
+	 */
+	private int tope;
+
+	/**
+	 * Casilla de cada punto de ramificacion abierto durante la busqueda.
+	 */
+	private final int[] pilaCasillas;
+
+	/**
+	 * Candidatos que quedan por probar en cada punto de ramificacion.
+	 */
+	private final int[] pilaCandidatos;
+
+	/**
+	 * Longitud del rastro al llegar a cada punto de ramificacion, antes de propagar.
+	 */
+	private final int[] pilaMarcasNodo;
+
+	/**
+	 * Longitud del rastro en cada punto de ramificacion despues de propagar, antes de probar un candidato.
+	 */
+	private final int[] pilaMarcasRama;
+
+	/**
+	 * Indicador compartido que, al activarse, detiene la busqueda en curso. Puede ser null.
+	 */
+	private AtomicBoolean cancelacion;
+
+	/**
+	 * Presupuesto de la busqueda en curso, o null si no tiene limite.
+	 */
+	private PresupuestoResolucion presupuesto;
+
+	/**
+	 * Array donde se copia la primera solucion encontrada.
+	 */
+	private int[] solucion;
+
+	/**
+	 * Numero de soluciones a partir del cual se detiene la busqueda.
+	 */
+	private int limite;
+
+	/**
+	 * Numero de soluciones encontradas en la busqueda actual.
+	 */
+	private int encontradas;
+
+	/**
+	 * Nodos visitados en la busqueda actual.
+	 */
+	private long nodosVisitados;
+
+	/**
+	 * Contradicciones encontradas en la busqueda actual.
+	 */
+	private long retrocesos;
+
+	/**
+	 * Candidatos probados en los puntos de ramificacion de la busqueda actual.
+	 */
+	private long candidatosProbados;
+
+	/**
+	 * Numeros colocados por la propagacion en la busqueda actual.
+	 */
+	private long deducciones;
+
+	/**
+	 * Mayor numero de puntos de ramificacion abiertos a la vez en la busqueda actual.
+	 */
+	private int profundidadMaxima;
+
+	/**
+	 * Estadisticas de la ultima llamada a resolver.
+	 */
+	private final EstadisticasResolucion estadisticas;
+
+	/**
+	 * Constructor de la clase MotorBitmask.
+	 * Inicializa el motor con todas las casillas vacias.
+	 */
+	public MotorBitmask()
+	{
+		celdas = new int[81];
+		filas = new int[9];
+		columnas = new int[9];
+		regiones = new int[9];
+		rastro = new int[81];
+		pilaCasillas = new int[81];
+		pilaCandidatos = new int[81];
+		pilaMarcasNodo = new int[81];
+		pilaMarcasRama = new int[81];
+		estadisticas = new EstadisticasResolucion();
+	}
+
+	/**
+	 * Calcula el indice de la region 3x3 a la que pertenece una casilla.
+	 * @param fila La fila de la casilla.
+	 * @param columna La columna de la casilla.
+	 * @return el indice de la region, de 0 a 8.
+	 */
+	public static int region(int fila, int columna)
+	{
+		return (fila / 3) * 3 + columna / 3;
+	}
+
+	/**
+	 * Vacia todas las casillas y mascaras del motor.
+	 */
+	public void vaciar()
+	{
+		for (int i = 0; i < 81; i++)
+		{
+			celdas[i] = 0;
+		}
+		for (int i = 0; i < 9; i++)
+		{
+			filas[i] = 0;
+			columnas[i] = 0;
+			regiones[i] = 0;
+		}
+	}
+
+	/**
+	 * Carga en el motor los valores de las 81 casillas.
+	 * @param valores Los valores de las casillas recorridas fila a fila, 0 si la casilla esta vacia.
+	 * @return true si ningun valor se repite en su fila, columna o region, false de lo contrario.
+	 */
+	public boolean cargar(int[] valores)
+	{
+		vaciar();
+		boolean consistente = true;
+		for (int i = 0; i < 81; i++)
+		{
+			if (valores[i] != 0)
+			{
+				consistente &= esValido(i / 9, i % 9, valores[i]);
+				colocar(i / 9, i % 9, valores[i]);
+			}
+		}
+		return consistente;
+	}
+
+	/**
+	 * Obtiene el valor colocado en una casilla.
+	 * @param fila La fila de la casilla.
+	 * @param columna La columna de la casilla.
+	 * @return el valor de la casilla, 0 si esta vacia.
+	 */
+	public int getValor(int fila, int columna)
+	{
+		return celdas[fila * 9 + columna];
+	}
+
+	/**
+	 * Calcula los numeros que aun pueden colocarse en una casilla.
+	 * @param fila La fila de la casilla.
+	 * @param columna La columna de la casilla.
+	 * @return mascara de candidatos, el bit n-1 representa el numero n.
+	 */
+	public int candidatos(int fila, int columna)
+	{
+		return ~(filas[fila] | columnas[columna] | regiones[region(fila, columna)]) & TODOS;
+	}
+
+	/**
+	 * Verifica si un numero puede colocarse en una casilla sin repetirse en su fila, columna o region.
+	 * @param fila La fila de la casilla.
+	 * @param columna La columna de la casilla.
+	 * @param num El numero a verificar.
+	 * @return true si el numero es valido en esa casilla, false de lo contrario.
+	 */
+	public boolean esValido(int fila, int columna, int num)
+	{
+		return (candidatos(fila, columna) & (1 << (num - 1))) != 0;
+	}
+
+	/**
+	 * Coloca un numero en una casilla y actualiza las mascaras.
+	 * @param fila La fila de la casilla.
+	 * @param columna La columna de la casilla.
+	 * @param num El numero a colocar.
+	 */
+	public void colocar(int fila, int columna, int num)
+	{
+		int bit = 1 << (num - 1);
+		celdas[fila * 9 + columna] = num;
+		filas[fila] |= bit;
+		columnas[columna] |= bit;
+		regiones[region(fila, columna)] |= bit;
+	}
+
+	/**
+	 * Quita el numero de una casilla y libera sus bits en las mascaras.
+	 * @param fila La fila de la casilla.
+	 * @param columna La columna de la casilla.
+	 */
+	public void quitar(int fila, int columna)
+	{
+		int num = celdas[fila * 9 + columna];
+		if (num != 0)
+		{
+			int bit = ~(1 << (num - 1));
+			celdas[fila * 9 + columna] = 0;
+			filas[fila] &= bit;
+			columnas[columna] &= bit;
+			regiones[region(fila, columna)] &= bit;
+		}
+	}
+
+	/**
+	 * Establece el indicador compartido con el que otros hilos pueden detener la busqueda.
+	 * @param cancelacion El indicador de cancelacion, o null para no permitir cancelar.
+	 */
+	public void setCancelacion(AtomicBoolean cancelacion)
+	{
+		this.cancelacion = cancelacion;
+	}
+
+	/**
+	 * Carga un tablero y aplica la propagacion sin ramificar, dejando el motor listo para consultar candidatos.
+	 * Permite repartir la busqueda a partir del estado ya simplificado, por ejemplo entre varios hilos.
+	 * @param valores Los valores de las 81 casillas; al terminar contienen tambien los valores deducidos.
+	 * Las estadisticas del motor pasan a contar este unico nodo y sus deducciones.
+	 * @return el indice de la casilla vacia con menos candidatos, TABLERO_COMPLETO o CONTRADICCION.
+	 */
+	public int simplificar(int[] valores)
+	{
+		tope = 0;
+		deducciones = 0;
+		boolean consistente = cargar(valores) && propagar();
+		estadisticas.fijar(1, consistente ? 0 : 1, 0, deducciones, 0);
+		if (!consistente)
+		{
+			return CONTRADICCION;
+		}
+		System.arraycopy(celdas, 0, valores, 0, 81);
+		int mejor = casillaMasRestringida();
+		return mejor < 0 ? TABLERO_COMPLETO : mejor;
+	}
+
+	@Override
+	public int resolver(int[] celdas, int limite, int[] solucion, PresupuestoResolucion presupuesto)
+	{
+		this.limite = limite;
+		this.solucion = solucion;
+		this.presupuesto = presupuesto;
+		encontradas = 0;
+		tope = 0;
+		nodosVisitados = 0;
+		retrocesos = 0;
+		candidatosProbados = 0;
+		deducciones = 0;
+		profundidadMaxima = 0;
+		boolean completa = true;
+		if (cargar(celdas))
+		{
+			completa = buscar();
+		}
+		this.presupuesto = null;
+		estadisticas.fijar(nodosVisitados, retrocesos, candidatosProbados, deducciones, profundidadMaxima);
+		return completa ? encontradas : PRESUPUESTO_AGOTADO;
+	}
+
+	@Override
+	public EstadisticasResolucion getEstadisticas()
+	{
+		return estadisticas;
+	}
+
+	/**
+	 * Busca soluciones propagando primero las deducciones y ramificando despues en la casilla vacia con menos candidatos.
+	 * La busqueda es iterativa: cada punto de ramificacion se guarda en una pila preasignada, sin recursion
+	 * ni reserva de memoria por nodo. El mismo recorrido sirve para buscar la primera solucion o para contar hasta el limite.
+	 * @return false si la busqueda se detuvo por agotar el presupuesto, true de lo contrario.
+	 */
+	private boolean buscar()
+	{
+		int nivel = 0;
+		int nodos = 0;
+		boolean nodoNuevo = true;
+		while (true)
+		{
+			if (cancelacion != null && cancelacion.get())
+			{
+				deshacerHasta(0);
+				return true;
+			}
+
+			if (nodoNuevo)
+			{
+				nodosVisitados++;
+				if (presupuesto != null && ++nodos == NODOS_POR_CONSULTA)
+				{
+					nodos = 0;
+					if (!presupuesto.consumir(NODOS_POR_CONSULTA))
+					{
+						deshacerHasta(0);
+						return false;
+					}
+				}
+
+				int marcaNodo = tope;
+				if (propagar())
+				{
+					int mejor = casillaMasRestringida();
+					if (mejor >= 0)
+					{
+						// Se abre un punto de ramificacion sobre la casilla mas restringida
+						pilaCasillas[nivel] = mejor;
+						pilaCandidatos[nivel] = candidatos(mejor / 9, mejor % 9);
+						pilaMarcasNodo[nivel] = marcaNodo;
+						pilaMarcasRama[nivel] = tope;
+						nivel++;
+						if (nivel > profundidadMaxima)
+						{
+							profundidadMaxima = nivel;
+						}
+					}
+					else
+					{
+						if (encontradas == 0)
+						{
+							System.arraycopy(celdas, 0, solucion, 0, 81);
+						}
+						encontradas++;
+						if (encontradas >= limite)
+						{
+							deshacerHasta(0);
+							return true;
+						}
+						deshacerHasta(marcaNodo);
+					}
+				}
+				else
+				{
+					retrocesos++;
+					deshacerHasta(marcaNodo);
+				}
+			}
+
+			// Backtracking: se prueba el siguiente candidato del punto de ramificacion mas profundo
+			nodoNuevo = false;
+			while (nivel > 0 && !nodoNuevo)
+			{
+				int k = nivel - 1;
+				deshacerHasta(pilaMarcasRama[k]);
+				int candidatos = pilaCandidatos[k];
+				if (candidatos != 0)
+				{
+					int bit = candidatos & -candidatos;
+					pilaCandidatos[k] = candidatos ^ bit;
+					asignar(pilaCasillas[k], Integer.numberOfTrailingZeros(bit) + 1);
+					candidatosProbados++;
+					nodoNuevo = true;
+				}
+				else
+				{
+					deshacerHasta(pilaMarcasNodo[k]);
+					nivel--;
+				}
+			}
+			if (!nodoNuevo)
+			{
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Aplica singles desnudos y singles ocultos hasta que no se deduce nada mas.
+	 * @return false si se detecta una contradiccion, true de lo contrario.
+	 */
+	private boolean propagar()
+	{
+		boolean cambios = true;
+		while (cambios)
+		{
+			cambios = false;
+
+			// Singles desnudos: casillas con un unico candidato
+			for (int i = 0; i < 81; i++)
+			{
+				if (celdas[i] == 0)
+				{
+					int candidatos = candidatos(i / 9, i % 9);
+					if (candidatos == 0)
+					{
+						return false;
+					}
+					if ((candidatos & (candidatos - 1)) == 0)
+					{
+						asignar(i, Integer.numberOfTrailingZeros(candidatos) + 1);
+						deducciones++;
+						cambios = true;
+					}
+				}
+			}
+
+			// Singles ocultos: numeros que solo caben en una casilla de su unidad
+			for (int u = 0; u < 27; u++)
+			{
+				int una = 0;
+				int varias = 0;
+				int ocupados = 0;
+				for (int k = 0; k < 9; k++)
+				{
+					int i = UNIDADES[u][k];
+					if (celdas[i] == 0)
+					{
+						int candidatos = candidatos(i / 9, i % 9);
+						varias |= una & candidatos;
+						una |= candidatos;
+					}
+					else
+					{
+						ocupados |= 1 << (celdas[i] - 1);
+					}
+				}
+				if ((una | ocupados) != TODOS)
+				{
+					return false;
+				}
+				int unicos = una & ~varias;
+				for (int k = 0; k < 9 && unicos != 0; k++)
+				{
+					int i = UNIDADES[u][k];
+					if (celdas[i] == 0)
+					{
+						int bit = candidatos(i / 9, i % 9) & unicos;
+						if (bit != 0)
+						{
+							if ((bit & (bit - 1)) != 0)
+							{
+								return false; // La casilla tendria que contener dos numeros a la vez
+							}
+							asignar(i, Integer.numberOfTrailingZeros(bit) + 1);
+							deducciones++;
+							unicos &= ~bit;
+							cambios = true;
+						}
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Busca la casilla vacia con menos candidatos.
+	 * @return el indice de la casilla, o -1 si el tablero esta completo.
+	 */
+	private int casillaMasRestringida()
+	{
+		int mejor = -1;
+		int menor = 10;
+		for (int i = 0; i < 81 && menor > 2; i++)
+		{
+			if (celdas[i] == 0)
+			{
+				int cuenta = Integer.bitCount(candidatos(i / 9, i % 9));
+				if (cuenta < menor)
+				{
+					menor = cuenta;
+					mejor = i;
+				}
+			}
+		}
+		return mejor;
+	}
+
+	/**
+	 * Coloca un numero en una casilla y lo anota en el rastro.
+	 * @param indice El indice de la casilla, de 0 a 80.
+	 * @param num El numero a colocar.
+	 */
+	private void asignar(int indice, int num)
+	{
+		colocar(indice / 9, indice % 9, num);
+		rastro[tope++] = indice;
+	}
+
+	/**
+	 * Quita las casillas del rastro hasta dejarlo con la longitud indicada.
+	 * @param marca La longitud del rastro a la que se vuelve.
+	 */
+	private void deshacerHasta(int marca)
+	{
+		while (tope > marca)
+		{
+			int indice = rastro[--tope];
+			quitar(indice / 9, indice % 9);
+		}
+	}
+}
@@ -0,0 +1,416 @@
+package Sudoku;
+
+/**
+ * Motor de resolucion basado en Dancing Links (Algoritmo X de Knuth).
+ * Modela el Sudoku como un problema de cobertura exacta con 324 restricciones:
+ * cada casilla tiene un numero y cada numero aparece una vez en cada fila, columna y region 3x3.
+ * Al elegir siempre la restriccion con menos opciones, su coste en el peor caso es mucho mas estable
+ * que el del backtracking casilla a casilla.
+ */
+public class MotorDLX implements MotorResolucion
+{
+	/**
+	 * Numero de restricciones (columnas) del problema de cobertura exacta.
+	 */
+	private static final int RESTRICCIONES = 324;
+
+	/**
+	 * Numero de opciones (filas) del problema: un numero del 1 al 9 en cada una de las 81 casillas.
+	 */
+	private static final int OPCIONES = 729;
+
+	/**
+	 * Enlaces a la izquierda de cada nodo.
+	 */
+	private final int[] izquierda;
+
+	/**
+	 * Enlaces a la derecha de cada nodo.
+	 */
+	private final int[] derecha;
+
+	/**
+	 * Enlaces hacia arriba de cada nodo.
+	 */
+	private final int[] arriba;
+
+	/**
+	 * Enlaces hacia abajo de cada nodo.
+	 */
+	private final int[] abajo;
+
+	/**
+	 * Columna (restriccion) a la que pertenece cada nodo.
+	 */
+	private final int[] columna;
+
+	/**
+	 * Opcion (casilla y numero) a la que pertenece cada nodo.
+	 */
+	private final int[] opcion;
+
+	/**
+	 * Numero de nodos activos en cada columna.
+	 */
+	private final int[] tamanio;
+
+	/**
+	 * Primer nodo de cada opcion.
+	 */
+	private final int[] primerNodo;
+
+	/**
+	 * Opciones elegidas durante la busqueda, indexadas por profundidad.
+	 */
+	private final int[] elegidas;
+
+	/**
+	 * Valores conocidos del tablero que se esta resolviendo.
+	 */
+	private int[] celdas;
+
+	/**
+	 * Array donde se copia la primera solucion encontrada.
+	 */
+	private int[] solucion;
+
+	/**
+	 * Numero de soluciones a partir del cual se detiene la busqueda.
+	 */
+	private int limite;
+
+	/**
+	 * Numero de soluciones encontradas en la busqueda actual.
+	 */
+	private int encontradas;
+
+	/**
+	 * Presupuesto de la busqueda en curso, o null si no tiene limite.
+	 */
+	private PresupuestoResolucion presupuesto;
+
+	/**
+	 * Nodos visitados desde la ultima consulta al presupuesto.
+	 */
+	private int nodos;
+
+	/**
+	 * Indica si la busqueda en curso se detuvo por agotar el presupuesto.
+	 */
+	private boolean agotado;
+
+	/**
+	 * Nodos visitados en la busqueda actual.
+	 */
+	private long nodosVisitados;
+
+	/**
+	 * Columnas sin opciones encontradas en la busqueda actual, cada una de las cuales obliga a retroceder.
+	 */
+	private long retrocesos;
+
+	/**
+	 * Opciones probadas en la busqueda actual.
+	 */
+	private long candidatosProbados;
+
+	/**
+	 * Mayor profundidad alcanzada en la busqueda actual.
+	 */
+	private int profundidadMaxima;
+
+	/**
+	 * Estadisticas de la ultima llamada a resolver.
+	 */
+	private final EstadisticasResolucion estadisticas;
+
+	/**
+	 * Constructor de la clase MotorDLX.
+	 * Construye una unica vez la matriz de cobertura exacta con sus 729 opciones y 324 restricciones.
+	 */
+	public MotorDLX()
+	{
+		int nodos = 1 + RESTRICCIONES + OPCIONES * 4;
+		izquierda = new int[nodos];
+		derecha = new int[nodos];
+		arriba = new int[nodos];
+		abajo = new int[nodos];
+		columna = new int[nodos];
+		opcion = new int[nodos];
+		tamanio = new int[RESTRICCIONES + 1];
+		primerNodo = new int[OPCIONES];
+		elegidas = new int[81];
+		estadisticas = new EstadisticasResolucion();
+
+		// El nodo 0 es la raiz y los nodos 1..324 las cabeceras de las columnas
+		for (int c = 0; c <= RESTRICCIONES; c++)
+		{
+			izquierda[c] = c == 0 ? RESTRICCIONES : c - 1;
+			derecha[c] = c == RESTRICCIONES ? 0 : c + 1;
+			arriba[c] = c;
+			abajo[c] = c;
+			columna[c] = c;
+		}
+
+		int nodo = RESTRICCIONES + 1;
+		for (int o = 0; o < OPCIONES; o++)
+		{
+			int casilla = o / 9;
+			int fila = casilla / 9;
+			int col = casilla % 9;
+			int digito = o % 9;
+			int[] columnasOpcion = {
+				1 + casilla,
+				1 + 81 + fila * 9 + digito,
+				1 + 162 + col * 9 + digito,
+				1 + 243 + MotorBitmask.region(fila, col) * 9 + digito
+			};
+
+			primerNodo[o] = nodo;
+			for (int k = 0; k < 4; k++)
+			{
+				int c = columnasOpcion[k];
+				columna[nodo] = c;
+				opcion[nodo] = o;
+
+				// Enlace vertical al final de la columna
+				arriba[nodo] = arriba[c];
+				abajo[nodo] = c;
+				abajo[arriba[c]] = nodo;
+				arriba[c] = nodo;
+				tamanio[c]++;
+
+				// Enlace horizontal circular dentro de la opcion
+				izquierda[nodo] = k == 0 ? nodo + 3 : nodo - 1;
+				derecha[nodo] = k == 3 ? nodo - 3 : nodo + 1;
+				nodo++;
+			}
+		}
+	}
+
+	@Override
+	public int resolver(int[] celdas, int limite, int[] solucion, PresupuestoResolucion presupuesto)
+	{
+		this.celdas = celdas;
+		this.limite = limite;
+		this.solucion = solucion;
+		this.presupuesto = presupuesto;
+		encontradas = 0;
+		nodos = 0;
+		agotado = false;
+		nodosVisitados = 0;
+		retrocesos = 0;
+		candidatosProbados = 0;
+		profundidadMaxima = 0;
+
+		// Las pistas se eligen de antemano; si dos pistas chocan el tablero no tiene solucion
+		int[] pistas = new int[81];
+		int numPistas = 0;
+		boolean valido = true;
+		for (int i = 0; i < 81 && valido; i++)
+		{
+			if (celdas[i] != 0)
+			{
+				int o = i * 9 + celdas[i] - 1;
+				if (opcionDisponible(o))
+				{
+					elegirOpcion(o);
+					pistas[numPistas++] = o;
+				}
+				else
+				{
+					valido = false;
+				}
+			}
+		}
+
+		if (valido)
+		{
+			buscar(0);
+		}
+
+		// Se deshacen las pistas en orden inverso para dejar la matriz intacta
+		for (int k = numPistas - 1; k >= 0; k--)
+		{
+			deshacerOpcion(pistas[k]);
+		}
+		this.presupuesto = null;
+		// El Algoritmo X no tiene fase de propagacion, por lo que no hay deducciones que contar
+		estadisticas.fijar(nodosVisitados, retrocesos, candidatosProbados, 0, profundidadMaxima);
+		return agotado ? PRESUPUESTO_AGOTADO : encontradas;
+	}
+
+	@Override
+	public EstadisticasResolucion getEstadisticas()
+	{
+		return estadisticas;
+	}
+
+	/**
+	 * Busca recursivamente coberturas exactas eligiendo siempre la columna con menos nodos.
+	 * @param profundidad El numero de opciones elegidas hasta el momento.
+	 * @return true si se ha alcanzado el limite de soluciones o agotado el presupuesto, false de lo contrario.
+	 */
+	private boolean buscar(int profundidad)
+	{
+		nodosVisitados++;
+		if (profundidad > profundidadMaxima)
+		{
+			profundidadMaxima = profundidad;
+		}
+		if (presupuesto != null && ++nodos == NODOS_POR_CONSULTA)
+		{
+			nodos = 0;
+			if (!presupuesto.consumir(NODOS_POR_CONSULTA))
+			{
+				agotado = true;
+				return true;
+			}
+		}
+
+		if (derecha[0] == 0)
+		{
+			if (encontradas == 0)
+			{
+				guardarSolucion(profundidad);
+			}
+			encontradas++;
+			return encontradas >= limite;
+		}
+
+		int mejor = derecha[0];
+		for (int c = derecha[mejor]; c != 0; c = derecha[c])
+		{
+			if (tamanio[c] < tamanio[mejor])
+			{
+				mejor = c;
+			}
+		}
+		if (tamanio[mejor] == 0)
+		{
+			retrocesos++;
+			return false;
+		}
+
+		cubrir(mejor);
+		boolean parar = false;
+		for (int r = abajo[mejor]; r != mejor && !parar; r = abajo[r])
+		{
+			elegidas[profundidad] = opcion[r];
+			candidatosProbados++;
+			for (int j = derecha[r]; j != r; j = derecha[j])
+			{
+				cubrir(columna[j]);
+			}
+			parar = buscar(profundidad + 1);
+			for (int j = izquierda[r]; j != r; j = izquierda[j])
+			{
+				descubrir(columna[j]);
+			}
+		}
+		descubrir(mejor);
+		return parar;
+	}
+
+	/**
+	 * Copia en el array de solucion las pistas y las opciones elegidas.
+	 * @param profundidad El numero de opciones elegidas durante la busqueda.
+	 */
+	private void guardarSolucion(int profundidad)
+	{
+		System.arraycopy(celdas, 0, solucion, 0, 81);
+		for (int k = 0; k < profundidad; k++)
+		{
+			solucion[elegidas[k] / 9] = elegidas[k] % 9 + 1;
+		}
+	}
+
+	/**
+	 * Comprueba si todas las columnas de una opcion siguen sin cubrir.
+	 * @param o La opcion a comprobar.
+	 * @return true si la opcion puede elegirse, false de lo contrario.
+	 */
+	private boolean opcionDisponible(int o)
+	{
+		int nodo = primerNodo[o];
+		int j = nodo;
+		do
+		{
+			int c = columna[j];
+			if (derecha[izquierda[c]] != c)
+			{
+				return false;
+			}
+			j = derecha[j];
+		} while (j != nodo);
+		return true;
+	}
+
+	/**
+	 * Elige una opcion cubriendo todas sus columnas.
+	 * @param o La opcion a elegir.
+	 */
+	private void elegirOpcion(int o)
+	{
+		int nodo = primerNodo[o];
+		int j = nodo;
+		do
+		{
+			cubrir(columna[j]);
+			j = derecha[j];
+		} while (j != nodo);
+	}
+
+	/**
+	 * Deshace la eleccion de una opcion descubriendo sus columnas en orden inverso.
+	 * @param o La opcion a deshacer.
+	 */
+	private void deshacerOpcion(int o)
+	{
+		int nodo = izquierda[primerNodo[o]];
+		int j = nodo;
+		do
+		{
+			descubrir(columna[j]);
+			j = izquierda[j];
+		} while (j != nodo);
+	}
+
+	/**
+	 * Retira una columna de la matriz junto con todas las opciones que la cubren.
+	 * @param c La columna a cubrir.
+	 */
+	private void cubrir(int c)
+	{
+		derecha[izquierda[c]] = derecha[c];
+		izquierda[derecha[c]] = izquierda[c];
+		for (int i = abajo[c]; i != c; i = abajo[i])
+		{
+			for (int j = derecha[i]; j != i; j = derecha[j])
+			{
+				abajo[arriba[j]] = abajo[j];
+				arriba[abajo[j]] = arriba[j];
+				tamanio[columna[j]]--;
+			}
+		}
+	}
+
+	/**
+	 * Devuelve a la matriz una columna cubierta, en el orden inverso al de cubrir.
+	 * @param c La columna a descubrir.
+	 */
+	private void descubrir(int c)
+	{
+		for (int i = arriba[c]; i != c; i = arriba[i])
+		{
+			for (int j = izquierda[i]; j != i; j = izquierda[j])
+			{
+				tamanio[columna[j]]++;
+				abajo[arriba[j]] = j;
+				arriba[abajo[j]] = j;
+			}
+		}
+		derecha[izquierda[c]] = c;
+		izquierda[derecha[c]] = c;
+	}
+}
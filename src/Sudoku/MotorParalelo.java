@@ -0,0 +1,228 @@
+package Sudoku;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Motor de resolucion paralelo basado en fork/join.
+ * Divide el arbol de busqueda en las primeras casillas de ramificacion y reparte cada rama como una tarea
+ * de un ForkJoinPool; por debajo de esa profundidad cada tarea resuelve su rama con un MotorBitmask.
+ * En cuanto se alcanza el limite de soluciones o se agota el presupuesto se cancelan todas las tareas pendientes.
+ */
+public class MotorParalelo implements MotorResolucion
+{
+	/**
+	 * Numero de niveles del arbol de busqueda que se reparten como tareas independientes.
+	 */
+	private static final int PROFUNDIDAD_DIVISION = 4;
+
+	/**
+	 * Motor secuencial de cada hilo, reutilizado por todas las tareas que ejecuta ese hilo.
+	 */
+	private static final ThreadLocal<MotorBitmask> MOTORES = ThreadLocal.withInitial(MotorBitmask::new);
+
+	/**
+	 * Pool de hilos en el que se ejecutan las tareas.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Estadisticas de la ultima llamada a resolver, sumadas entre todas las tareas.
+	 */
+	private final EstadisticasResolucion estadisticas;
+
+	/**
+	 * Constructor de la clase MotorParalelo que utiliza el pool comun de la maquina virtual.
+	 */
+	public MotorParalelo()
+	{
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor de la clase MotorParalelo que utiliza un pool concreto.
+	 * @param pool El pool de hilos en el que se ejecutan las tareas.
+	 */
+	public MotorParalelo(ForkJoinPool pool)
+	{
+		this.pool = pool;
+		this.estadisticas = new EstadisticasResolucion();
+	}
+
+	@Override
+	public int resolver(int[] celdas, int limite, int[] solucion, PresupuestoResolucion presupuesto)
+	{
+		Busqueda busqueda = new Busqueda(limite, solucion, presupuesto);
+		pool.invoke(new Rama(busqueda, celdas.clone(), 0));
+		EstadisticasResolucion suma = busqueda.estadisticas;
+		estadisticas.fijar(suma.getNodos(), suma.getRetrocesos(), suma.getCandidatosProbados(), suma.getDeducciones(), suma.getProfundidadMaxima());
+		int encontradas = busqueda.encontradas.get();
+		if (encontradas < limite && busqueda.agotado.get())
+		{
+			return PRESUPUESTO_AGOTADO;
+		}
+		return Math.min(encontradas, limite);
+	}
+
+	@Override
+	public EstadisticasResolucion getEstadisticas()
+	{
+		return estadisticas;
+	}
+
+	/**
+	 * Estado compartido por todas las tareas de una misma busqueda.
+	 */
+	private static class Busqueda
+	{
+		/** Numero de soluciones a partir del cual se detiene la busqueda. */
+		private final int limite;
+
+		/** Array donde se copia la primera solucion encontrada. */
+		private final int[] solucion;
+
+		/** Numero de soluciones encontradas entre todas las tareas. */
+		private final AtomicInteger encontradas;
+
+		/** Indica si alguna tarea ya ha copiado su solucion. */
+		private final AtomicBoolean solucionGuardada;
+
+		/** Se activa al alcanzar el limite o agotar el presupuesto y detiene todas las tareas. */
+		private final AtomicBoolean cancelacion;
+
+		/** Presupuesto comun a todas las tareas, o null si la busqueda no tiene limite. */
+		private final PresupuestoResolucion presupuesto;
+
+		/** Indica si alguna tarea se detuvo por agotar el presupuesto. */
+		private final AtomicBoolean agotado;
+
+		/** Contadores sumados por todas las tareas. */
+		private final EstadisticasResolucion estadisticas;
+
+		/**
+		 * Constructor de la clase Busqueda.
+		 * @param limite El numero de soluciones a partir del cual se detiene la busqueda.
+		 * @param solucion Array donde se copia la primera solucion encontrada.
+		 * @param presupuesto Presupuesto comun a todas las tareas, o null si la busqueda no tiene limite.
+		 */
+		private Busqueda(int limite, int[] solucion, PresupuestoResolucion presupuesto)
+		{
+			this.limite = limite;
+			this.solucion = solucion;
+			this.presupuesto = presupuesto;
+			agotado = new AtomicBoolean();
+			estadisticas = new EstadisticasResolucion();
+			encontradas = new AtomicInteger();
+			solucionGuardada = new AtomicBoolean();
+			cancelacion = new AtomicBoolean();
+		}
+
+		/**
+		 * Suma las soluciones encontradas por una tarea y cancela la busqueda si se alcanza el limite.
+		 * @param cantidad El numero de soluciones encontradas por la tarea.
+		 * @param primera La primera solucion encontrada por la tarea.
+		 */
+		private void anotar(int cantidad, int[] primera)
+		{
+			if (cantidad == PRESUPUESTO_AGOTADO)
+			{
+				agotado.set(true);
+				cancelacion.set(true);
+			}
+			else if (cantidad > 0)
+			{
+				if (solucionGuardada.compareAndSet(false, true))
+				{
+					System.arraycopy(primera, 0, solucion, 0, 81);
+				}
+				if (encontradas.addAndGet(cantidad) >= limite)
+				{
+					cancelacion.set(true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Tarea que explora una rama del arbol de busqueda.
+	 */
+	private static class Rama extends RecursiveAction
+	{
+		/** Version de serializacion, que RecursiveAction hereda de Serializable. */
+		private static final long serialVersionUID = 1L;
+
+		/** Estado compartido de la busqueda. */
+		private final Busqueda busqueda;
+
+		/** Valores de las casillas en esta rama. */
+		private final int[] celdas;
+
+		/** Profundidad de la rama dentro del arbol de busqueda. */
+		private final int profundidad;
+
+		/**
+		 * Constructor de la clase Rama.
+		 * @param busqueda Estado compartido de la busqueda.
+		 * @param celdas Valores de las casillas en esta rama.
+		 * @param profundidad Profundidad de la rama dentro del arbol de busqueda.
+		 */
+		private Rama(Busqueda busqueda, int[] celdas, int profundidad)
+		{
+			this.busqueda = busqueda;
+			this.celdas = celdas;
+			this.profundidad = profundidad;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (busqueda.cancelacion.get())
+			{
+				return;
+			}
+
+			MotorBitmask motor = MOTORES.get();
+			if (profundidad >= PROFUNDIDAD_DIVISION)
+			{
+				int[] primera = new int[81];
+				motor.setCancelacion(busqueda.cancelacion);
+				int restantes = busqueda.limite - busqueda.encontradas.get();
+				int cantidad = restantes > 0 ? motor.resolver(celdas, restantes, primera, busqueda.presupuesto) : 0;
+				motor.setCancelacion(null);
+				if (restantes > 0)
+				{
+					busqueda.estadisticas.sumar(motor.getEstadisticas(), profundidad);
+				}
+				busqueda.anotar(cantidad, primera);
+				return;
+			}
+
+			int mejor = motor.simplificar(celdas);
+			busqueda.estadisticas.sumar(motor.getEstadisticas(), profundidad);
+			if (mejor == MotorBitmask.CONTRADICCION)
+			{
+				return;
+			}
+			if (mejor == MotorBitmask.TABLERO_COMPLETO)
+			{
+				busqueda.anotar(1, celdas);
+				return;
+			}
+
+			int candidatos = motor.candidatos(mejor / 9, mejor % 9);
+			busqueda.estadisticas.sumar(0, 0, Integer.bitCount(candidatos), 0, profundidad + 1);
+			Rama[] ramas = new Rama[Integer.bitCount(candidatos)];
+			for (int k = 0; k < ramas.length; k++)
+			{
+				int bit = candidatos & -candidatos;
+				candidatos ^= bit;
+				int[] hijas = celdas.clone();
+				hijas[mejor] = Integer.numberOfTrailingZeros(bit) + 1;
+				ramas[k] = new Rama(busqueda, hijas, profundidad + 1);
+			}
+			invokeAll(ramas);
+		}
+	}
+}
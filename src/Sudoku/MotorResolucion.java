@@ -0,0 +1,48 @@
+package Sudoku;
+
+/**
+ * Interfaz MotorResolucion que define un motor capaz de resolver un tablero de Sudoku.
+ * Permite seleccionar distintas implementaciones del algoritmo de resolucion sin cambiar la logica del juego.
+ */
+public interface MotorResolucion
+{
+    /**
+     * Resultado que indica que la busqueda se detuvo por agotar su presupuesto o por cancelarse.
+     */
+    public static final int PRESUPUESTO_AGOTADO = -1;
+
+    /**
+     * Numero de nodos que los motores visitan entre dos consultas al presupuesto.
+     */
+    public static final int NODOS_POR_CONSULTA = 256;
+
+    /**
+     * Busca soluciones del Sudoku a partir de los valores conocidos de sus casillas, sin limite de coste.
+     * @param celdas Los valores de las 81 casillas recorridas fila a fila, 0 si la casilla esta vacia.
+     * @param limite El numero de soluciones a partir del cual se detiene la busqueda.
+     * @param solucion Array de 81 posiciones donde se copia la primera solucion encontrada.
+     * @return el numero de soluciones encontradas, como maximo el limite indicado.
+     */
+    public default int resolver(int[] celdas, int limite, int[] solucion)
+    {
+        return resolver(celdas, limite, solucion, null);
+    }
+
+    /**
+     * Busca soluciones del Sudoku a partir de los valores conocidos de sus casillas.
+     * La busqueda se detiene en cuanto se alcanza el limite de soluciones indicado o se agota el presupuesto.
+     * @param celdas Los valores de las 81 casillas recorridas fila a fila, 0 si la casilla esta vacia.
+     * @param limite El numero de soluciones a partir del cual se detiene la busqueda.
+     * @param solucion Array de 81 posiciones donde se copia la primera solucion encontrada.
+     * @param presupuesto El presupuesto de nodos, tiempo y cancelacion de la busqueda, o null para no limitarla.
+     * @return el numero de soluciones encontradas, como maximo el limite indicado, o PRESUPUESTO_AGOTADO.
+     */
+    public int resolver(int[] celdas, int limite, int[] solucion, PresupuestoResolucion presupuesto);
+
+    /**
+     * Obtiene los contadores de la ultima llamada a resolver: nodos, retrocesos, profundidad maxima,
+     * candidatos probados y deducciones. El objeto se reutiliza en cada llamada.
+     * @return las estadisticas de la ultima resolucion.
+     */
+    public EstadisticasResolucion getEstadisticas();
+}
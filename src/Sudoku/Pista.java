@@ -0,0 +1,85 @@
+package Sudoku;
+
+/**
+ * Siguiente jugada que se deduce con logica de un tablero a medio resolver, tal como la encuentra CalificadorDificultad.
+ * Guarda la casilla y el numero deducidos, la tecnica mas dificil necesaria y las casillas que la justifican.
+ */
+public class Pista
+{
+	/**
+	 * Tecnica mas dificil necesaria para deducir la casilla.
+	 */
+	private final TecnicaResolucion tecnica;
+
+	/**
+	 * Indice de la casilla deducida, de 0 a 80.
+	 */
+	private final int indice;
+
+	/**
+	 * Numero que corresponde a la casilla deducida, de 1 a 9.
+	 */
+	private final int valor;
+
+	/**
+	 * Casillas implicadas en la deduccion; la primera es la casilla deducida.
+	 */
+	private final int[] casillas;
+
+	/**
+	 * Constructor de la clase Pista.
+	 * @param tecnica Tecnica mas dificil necesaria para deducir la casilla.
+	 * @param indice Indice de la casilla deducida, de 0 a 80.
+	 * @param valor Numero que corresponde a la casilla deducida, de 1 a 9.
+	 * @param casillas Casillas implicadas en la deduccion, empezando por la casilla deducida.
+	 */
+	public Pista(TecnicaResolucion tecnica, int indice, int valor, int[] casillas)
+	{
+		this.tecnica = tecnica;
+		this.indice = indice;
+		this.valor = valor;
+		this.casillas = casillas.clone();
+	}
+
+	/**
+	 * Obtiene la tecnica mas dificil necesaria para deducir la casilla.
+	 * @return la tecnica de la pista.
+	 */
+	public TecnicaResolucion getTecnica()
+	{
+		return tecnica;
+	}
+
+	/**
+	 * Obtiene la casilla deducida.
+	 * @return el indice de la casilla, de 0 a 80.
+	 */
+	public int getIndice()
+	{
+		return indice;
+	}
+
+	/**
+	 * Obtiene el numero que corresponde a la casilla deducida.
+	 * @return el numero, de 1 a 9.
+	 */
+	public int getValor()
+	{
+		return valor;
+	}
+
+	/**
+	 * Obtiene las casillas implicadas en la deduccion.
+	 * @return una copia de los indices de las casillas, empezando por la casilla deducida.
+	 */
+	public int[] getCasillas()
+	{
+		return casillas.clone();
+	}
+
+	@Override
+	public String toString()
+	{
+		return tecnica.getNombre() + ": el " + valor + " va en la fila " + (indice / 9 + 1) + ", columna " + (indice % 9 + 1);
+	}
+}
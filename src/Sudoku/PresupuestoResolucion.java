@@ -0,0 +1,101 @@
+package Sudoku;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Presupuesto de una resolucion: numero maximo de nodos, tiempo maximo y un indicador de cancelacion.
+ * Permite acotar el coste de resolver un Sudoku patologico tanto en la interfaz como en los procesos por lotes.
+ * Es seguro compartirlo entre hilos, por lo que los motores paralelos consumen un unico presupuesto comun.
+ */
+public class PresupuestoResolucion
+{
+	/**
+	 * Valor que indica que no se limita el numero de nodos o el tiempo.
+	 */
+	public static final long SIN_LIMITE = Long.MAX_VALUE;
+
+	/**
+	 * Numero maximo de nodos de busqueda que se pueden visitar.
+	 */
+	private final long maxNodos;
+
+	/**
+	 * Instante, segun System.nanoTime(), a partir del cual se agota el tiempo.
+	 */
+	private final long plazo;
+
+	/**
+	 * Indica si la resolucion tiene limite de tiempo.
+	 */
+	private final boolean conPlazo;
+
+	/**
+	 * Nodos consumidos hasta el momento por todos los hilos.
+	 */
+	private final AtomicLong nodos;
+
+	/**
+	 * Indicador de cancelacion, que puede activarse desde cualquier hilo.
+	 */
+	private final AtomicBoolean cancelado;
+
+	/**
+	 * Constructor de la clase PresupuestoResolucion.
+	 * @param maxNodos Numero maximo de nodos de busqueda, o SIN_LIMITE.
+	 * @param milisMaximos Tiempo maximo en milisegundos desde este momento, o SIN_LIMITE.
+	 */
+	public PresupuestoResolucion(long maxNodos, long milisMaximos)
+	{
+		this.maxNodos = maxNodos;
+		this.conPlazo = milisMaximos != SIN_LIMITE;
+		this.plazo = conPlazo ? System.nanoTime() + milisMaximos * 1_000_000L : 0;
+		this.nodos = new AtomicLong();
+		this.cancelado = new AtomicBoolean();
+	}
+
+	/**
+	 * Cancela la resolucion; los motores que usen este presupuesto se detienen en cuanto lo comprueban.
+	 */
+	public void cancelar()
+	{
+		cancelado.set(true);
+	}
+
+	/**
+	 * Comprueba si la resolucion ha sido cancelada.
+	 * @return true si se ha llamado a cancelar(), false de lo contrario.
+	 */
+	public boolean isCancelado()
+	{
+		return cancelado.get();
+	}
+
+	/**
+	 * Obtiene el numero de nodos consumidos hasta el momento.
+	 * @return los nodos consumidos.
+	 */
+	public long getNodos()
+	{
+		return nodos.get();
+	}
+
+	/**
+	 * Anota los nodos visitados y comprueba si queda presupuesto.
+	 * Los motores lo llaman por bloques de nodos para no comprobar el reloj en cada nodo.
+	 * @param cantidad El numero de nodos visitados desde la ultima llamada.
+	 * @return true si se puede continuar, false si se ha agotado el presupuesto o se ha cancelado.
+	 */
+	public boolean consumir(long cantidad)
+	{
+		if (nodos.addAndGet(cantidad) > maxNodos)
+		{
+			return false;
+		}
+		if (conPlazo && System.nanoTime() - plazo > 0)
+		{
+			return false;
+		}
+		return !cancelado.get();
+	}
+}
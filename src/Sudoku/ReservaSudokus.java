@@ -0,0 +1,376 @@
+package Sudoku;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Reserva de Sudokus ya generados para cada nivel de dificultad.
+ * Cada nivel tiene una cola acotada que rellenan hilos demonio de prioridad minima hasta la profundidad indicada;
+ * al estar llena, los hilos se bloquean sin consumir CPU hasta que se toma un Sudoku.
+ * Tomar un Sudoku de la reserva no genera nada, por lo que empezar una partida nueva no bloquea la interfaz.
+ * Si un nivel se vacia, se deriva un Sudoku nuevo del ultimo servido aplicandole una simetria aleatoria, que cuesta O(81).
+ * Los Sudokus que el generador no consigue llevar al nivel pedido se descartan, de modo que la reserva nunca sirve uno de otro nivel.
+ * Lleva la cuenta del llenado, de los Sudokus generados, descartados, servidos y derivados y de las veces que se encontro vacia.
+ */
+public class ReservaSudokus
+{
+	/**
+	 * Numero de Sudokus que se guardan por nivel si no se indica otro.
+	 */
+	public static final int PROFUNDIDAD_POR_DEFECTO = 8;
+
+	/**
+	 * Numero maximo de Sudokus guardados en cada nivel.
+	 */
+	private final int profundidad;
+
+	/**
+	 * Numero de hilos que rellenan cada nivel.
+	 */
+	private final int hilosPorNivel;
+
+	/**
+	 * Cola de Sudokus de cada nivel, en el orden de GeneradorSudoku.NIVELES.
+	 */
+	private final ArrayBlockingQueue<SudokuGenerado>[] colas;
+
+	/**
+	 * Hilos que rellenan las colas; null hasta que se inicia la reserva.
+	 */
+	private Thread[] hilos;
+
+	/**
+	 * Sudokus generados por los hilos de cada nivel.
+	 */
+	private final AtomicLongArray generados;
+
+	/**
+	 * Sudokus generados de cada nivel que se descartaron por no alcanzar ese nivel.
+	 */
+	private final AtomicLongArray descartados;
+
+	/**
+	 * Nanosegundos empleados por los hilos de cada nivel en generar.
+	 */
+	private final AtomicLongArray nanosGeneracion;
+
+	/**
+	 * Sudokus servidos de cada nivel.
+	 */
+	private final AtomicLongArray servidos;
+
+	/**
+	 * Veces que se pidio un Sudoku de cada nivel con la cola vacia.
+	 */
+	private final AtomicLongArray vacios;
+
+	/**
+	 * Sudokus de cada nivel derivados por simetria al encontrar la cola vacia.
+	 */
+	private final AtomicLongArray derivados;
+
+	/**
+	 * Ultimo Sudoku servido de cada nivel, del que se derivan los nuevos cuando la cola esta vacia; protegido por transformador.
+	 */
+	private final SudokuGenerado[] ultimos;
+
+	/**
+	 * Transformador con el que se derivan los Sudokus cuando la cola esta vacia.
+	 */
+	private final TransformadorSudoku transformador;
+
+	/**
+	 * Instante en nanosegundos en el que se inicio la reserva.
+	 */
+	private volatile long inicio;
+
+	/**
+	 * Constructor de la clase ReservaSudokus con un hilo por nivel.
+	 * @param profundidad Numero maximo de Sudokus guardados en cada nivel.
+	 */
+	public ReservaSudokus(int profundidad)
+	{
+		this(profundidad, 1);
+	}
+
+	/**
+	 * Constructor de la clase ReservaSudokus.
+	 * @param profundidad Numero maximo de Sudokus guardados en cada nivel.
+	 * @param hilosPorNivel Numero de hilos que rellenan cada nivel.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public ReservaSudokus(int profundidad, int hilosPorNivel)
+	{
+		if (profundidad < 1)
+		{
+			throw new IllegalArgumentException("la profundidad de la reserva debe ser al menos 1");
+		}
+		if (hilosPorNivel < 1)
+		{
+			throw new IllegalArgumentException("el numero de hilos por nivel debe ser al menos 1");
+		}
+		int niveles = GeneradorSudoku.NIVELES.length;
+		this.profundidad = profundidad;
+		this.hilosPorNivel = hilosPorNivel;
+		this.colas = new ArrayBlockingQueue[niveles];
+		for (int k = 0; k < niveles; k++)
+		{
+			colas[k] = new ArrayBlockingQueue<>(profundidad);
+		}
+		this.generados = new AtomicLongArray(niveles);
+		this.descartados = new AtomicLongArray(niveles);
+		this.nanosGeneracion = new AtomicLongArray(niveles);
+		this.servidos = new AtomicLongArray(niveles);
+		this.vacios = new AtomicLongArray(niveles);
+		this.derivados = new AtomicLongArray(niveles);
+		this.ultimos = new SudokuGenerado[niveles];
+		this.transformador = new TransformadorSudoku();
+	}
+
+	/**
+	 * Arranca los hilos que rellenan la reserva. No hace nada si ya estaba iniciada.
+	 */
+	public synchronized void iniciar()
+	{
+		if (hilos != null)
+		{
+			return;
+		}
+		inicio = System.nanoTime();
+		hilos = new Thread[colas.length * hilosPorNivel];
+		SplittableRandom raiz = new SplittableRandom();
+		for (int k = 0; k < colas.length; k++)
+		{
+			for (int h = 0; h < hilosPorNivel; h++)
+			{
+				final int nivel = k;
+				final SplittableRandom random = raiz.split();
+				Thread hilo = new Thread(() -> rellenar(nivel, random), "reserva-" + GeneradorSudoku.NIVELES[k] + "-" + h);
+				hilo.setDaemon(true);
+				hilo.setPriority(Thread.MIN_PRIORITY);
+				hilos[k * hilosPorNivel + h] = hilo;
+				hilo.start();
+			}
+		}
+	}
+
+	/**
+	 * Detiene los hilos que rellenan la reserva. Los Sudokus ya guardados se pueden seguir tomando.
+	 */
+	public synchronized void detener()
+	{
+		if (hilos == null)
+		{
+			return;
+		}
+		for (Thread hilo : hilos)
+		{
+			hilo.interrupt();
+		}
+		hilos = null;
+	}
+
+	/**
+	 * Bucle de los hilos de un nivel: genera Sudokus y guarda los que son de ese nivel, bloqueandose mientras la cola este llena.
+	 * @param nivel La posicion del nivel en GeneradorSudoku.NIVELES.
+	 * @param random El generador de numeros aleatorios propio del hilo.
+	 */
+	private void rellenar(int nivel, SplittableRandom random)
+	{
+		GeneradorSudoku generador = new GeneradorSudoku(random);
+		String dificultad = GeneradorSudoku.NIVELES[nivel];
+		int[] pistas = new int[81];
+		int[] solucion = new int[81];
+		try
+		{
+			while (!Thread.currentThread().isInterrupted())
+			{
+				long antes = System.nanoTime();
+				TecnicaResolucion tecnica = generador.generar(dificultad, pistas, solucion);
+				nanosGeneracion.addAndGet(nivel, System.nanoTime() - antes);
+				generados.incrementAndGet(nivel);
+				if (!GeneradorSudoku.cumpleNivel(tecnica, dificultad))
+				{
+					descartados.incrementAndGet(nivel);
+					continue;
+				}
+				colas[nivel].put(new SudokuGenerado(pistas, solucion, tecnica));
+			}
+		}
+		catch (InterruptedException e)
+		{
+			// La reserva se ha detenido
+		}
+	}
+
+	/**
+	 * Toma un Sudoku de la reserva sin esperar. Si la cola del nivel esta vacia se deriva uno por simetria del ultimo servido.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @return un Sudoku del nivel pedido, o null si la reserva de ese nivel esta vacia y aun no ha servido ninguno.
+	 */
+	public SudokuGenerado tomar(String dificultad)
+	{
+		int nivel = GeneradorSudoku.indiceNivel(dificultad);
+		SudokuGenerado sudoku = colas[nivel].poll();
+		synchronized (transformador)
+		{
+			if (sudoku != null)
+			{
+				servidos.incrementAndGet(nivel);
+				ultimos[nivel] = sudoku;
+				return sudoku;
+			}
+			vacios.incrementAndGet(nivel);
+			if (ultimos[nivel] == null)
+			{
+				return null;
+			}
+			derivados.incrementAndGet(nivel);
+			return transformador.transformar(ultimos[nivel]);
+		}
+	}
+
+	/**
+	 * Toma un Sudoku de la reserva esperando como mucho el tiempo indicado si la cola del nivel esta vacia
+	 * y aun no se ha servido ninguno del que derivarlo. No debe llamarse desde el hilo de eventos de Swing.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @param milis Milisegundos maximos de espera.
+	 * @return un Sudoku del nivel pedido, o null si no se ha generado ninguno a tiempo.
+	 * @throws InterruptedException si se interrumpe la espera.
+	 */
+	public SudokuGenerado esperar(String dificultad, long milis) throws InterruptedException
+	{
+		SudokuGenerado sudoku = tomar(dificultad);
+		if (sudoku != null)
+		{
+			return sudoku;
+		}
+		int nivel = GeneradorSudoku.indiceNivel(dificultad);
+		sudoku = colas[nivel].poll(milis, TimeUnit.MILLISECONDS);
+		if (sudoku != null)
+		{
+			synchronized (transformador)
+			{
+				servidos.incrementAndGet(nivel);
+				ultimos[nivel] = sudoku;
+			}
+		}
+		return sudoku;
+	}
+
+	/**
+	 * Obtiene el numero maximo de Sudokus guardados en cada nivel.
+	 * @return la profundidad de la reserva.
+	 */
+	public int getProfundidad()
+	{
+		return profundidad;
+	}
+
+	/**
+	 * Obtiene el numero de Sudokus guardados de un nivel.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @return los Sudokus listos para servir.
+	 */
+	public int getLlenado(String dificultad)
+	{
+		return colas[GeneradorSudoku.indiceNivel(dificultad)].size();
+	}
+
+	/**
+	 * Obtiene el numero de Sudokus generados de un nivel desde que se inicio la reserva.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @return los Sudokus generados.
+	 */
+	public long getGenerados(String dificultad)
+	{
+		return generados.get(GeneradorSudoku.indiceNivel(dificultad));
+	}
+
+	/**
+	 * Obtiene el numero de Sudokus generados de un nivel que se descartaron por no alcanzar ese nivel.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @return los Sudokus descartados.
+	 */
+	public long getDescartados(String dificultad)
+	{
+		return descartados.get(GeneradorSudoku.indiceNivel(dificultad));
+	}
+
+	/**
+	 * Obtiene el numero de Sudokus servidos de un nivel.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @return los Sudokus servidos.
+	 */
+	public long getServidos(String dificultad)
+	{
+		return servidos.get(GeneradorSudoku.indiceNivel(dificultad));
+	}
+
+	/**
+	 * Obtiene el numero de veces que se pidio un Sudoku de un nivel con la reserva vacia.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @return las peticiones que no se pudieron servir.
+	 */
+	public long getVacios(String dificultad)
+	{
+		return vacios.get(GeneradorSudoku.indiceNivel(dificultad));
+	}
+
+	/**
+	 * Obtiene el numero de Sudokus de un nivel derivados por simetria al encontrar la reserva vacia.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @return los Sudokus derivados.
+	 */
+	public long getDerivados(String dificultad)
+	{
+		return derivados.get(GeneradorSudoku.indiceNivel(dificultad));
+	}
+
+	/**
+	 * Calcula el ritmo medio de reposicion de un nivel desde que se inicio la reserva.
+	 * Incluye el tiempo que los hilos pasan bloqueados con la cola llena, por lo que mide lo que se repone, no lo que se podria reponer.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @return los Sudokus generados por segundo, o 0 si la reserva no se ha iniciado.
+	 */
+	public double getTasaReposicion(String dificultad)
+	{
+		long transcurrido = System.nanoTime() - inicio;
+		if (inicio == 0 || transcurrido <= 0)
+		{
+			return 0;
+		}
+		return getGenerados(dificultad) * 1e9 / transcurrido;
+	}
+
+	/**
+	 * Calcula el tiempo medio que cuesta generar un Sudoku de un nivel, que acota el ritmo maximo de reposicion.
+	 * @param dificultad "Facil", "Medio" o "Dificil".
+	 * @return los milisegundos medios por Sudoku, o 0 si aun no se ha generado ninguno.
+	 */
+	public double getMilisMediosGeneracion(String dificultad)
+	{
+		int nivel = GeneradorSudoku.indiceNivel(dificultad);
+		long n = generados.get(nivel);
+		return n == 0 ? 0 : nanosGeneracion.get(nivel) / 1e6 / n;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder texto = new StringBuilder();
+		for (String dificultad : GeneradorSudoku.NIVELES)
+		{
+			if (texto.length() > 0)
+			{
+				texto.append(' ');
+			}
+			texto.append(String.format("%s=%d/%d generados=%d descartados=%d servidos=%d vacios=%d derivados=%d ritmo=%.1f/s media=%.2fms",
+					dificultad, getLlenado(dificultad), profundidad, getGenerados(dificultad), getDescartados(dificultad), getServidos(dificultad),
+					getVacios(dificultad), getDerivados(dificultad), getTasaReposicion(dificultad), getMilisMediosGeneracion(dificultad)));
+		}
+		return texto.toString();
+	}
+}
@@ -0,0 +1,72 @@
+package Sudoku;
+
+/**
+ * Sudoku ya generado y listo para jugar: sus pistas, su solucion unica y la tecnica mas dificil que necesita.
+ * Es inmutable, por lo que puede pasarse entre hilos sin sincronizacion, por ejemplo desde la reserva de Sudokus.
+ */
+public class SudokuGenerado
+{
+	/**
+	 * Pistas de las 81 casillas recorridas fila a fila, 0 en las casillas vacias.
+	 */
+	private final int[] pistas;
+
+	/**
+	 * Solucion de las 81 casillas recorridas fila a fila.
+	 */
+	private final int[] solucion;
+
+	/**
+	 * Tecnica mas dificil que necesita el Sudoku.
+	 */
+	private final TecnicaResolucion tecnica;
+
+	/**
+	 * Constructor de la clase SudokuGenerado. Copia los arrays recibidos.
+	 * @param pistas Las pistas de las 81 casillas, 0 en las casillas vacias.
+	 * @param solucion La solucion de las 81 casillas.
+	 * @param tecnica La tecnica mas dificil que necesita el Sudoku.
+	 */
+	public SudokuGenerado(int[] pistas, int[] solucion, TecnicaResolucion tecnica)
+	{
+		this.pistas = pistas.clone();
+		this.solucion = solucion.clone();
+		this.tecnica = tecnica;
+	}
+
+	/**
+	 * Obtiene las pistas del Sudoku.
+	 * @return una copia de las pistas, 0 en las casillas vacias.
+	 */
+	public int[] getPistas()
+	{
+		return pistas.clone();
+	}
+
+	/**
+	 * Obtiene la solucion del Sudoku.
+	 * @return una copia de la solucion.
+	 */
+	public int[] getSolucion()
+	{
+		return solucion.clone();
+	}
+
+	/**
+	 * Obtiene la tecnica mas dificil que necesita el Sudoku.
+	 * @return la tecnica.
+	 */
+	public TecnicaResolucion getTecnica()
+	{
+		return tecnica;
+	}
+
+	/**
+	 * Obtiene el nivel de dificultad del Sudoku.
+	 * @return "Facil", "Medio" o "Dificil".
+	 */
+	public String getNivel()
+	{
+		return tecnica.getNivel();
+	}
+}
@@ -1,27 +1,70 @@
 package Sudoku;
 
+import java.util.Arrays;
+
 /**
  * Clase que representa el tablero de juego del Sudoku.
+ * Los valores de las 81 casillas se guardan fila a fila en arrays primitivos compactos;
+ * las celdas de getTablero() son vistas ligeras sobre esos arrays que solo se crean si se piden.
  */
-public class Tablero_Sudoku extends Celda
+public class Tablero_Sudoku
 {
-    /** Matriz de tipo Celda que representa el tablero del Sudoku. */
+    /** Valor correcto de cada casilla, 0 si aun no se conoce. */
+    private final byte[] valoresBuenos;
+
+    /** Valor ingresado por el usuario en cada casilla, 0 si esta vacia. */
+    private final byte[] valoresDados;
+
+    /** Conjunto de bits con las casillas que forman parte de la configuracion inicial. */
+    private final long[] base;
+
+    /** Conjunto de bits con las casillas cuyo valor ingresado es correcto. */
+    private final long[] correctas;
+
+    /** Numero de casillas marcadas como correctas, mantenido al cambiar cada marca. */
+    private int numCorrectas;
+
+    /** Numero de casillas con un valor ingresado distinto de 0, mantenido al cambiar cada valor. */
+    private int numLlenas;
+
+    /**
+     * Veces que aparece cada numero entre los valores ingresados de cada unidad, en la posicion unidad * 10 + numero.
+     * Las unidades 0 a 8 son las filas, 9 a 17 las columnas y 18 a 26 las regiones.
+     */
+    private final byte[] apariciones;
+
+    /** Numero de valores ingresados que repiten un numero ya presente en su fila, columna o region, sumado por unidades. */
+    private int numDuplicados;
+
+    /**
+     * Notas de cada casilla: mascara de 9 bits con el bit numero - 1 encendido para cada candidato anotado.
+     * Es null, igual que borradas, hasta que se anota algo o se activan las notas automaticas, para no ocupar memoria
+     * en los tableros que solo se resuelven o generan.
+     */
+    private short[] notas;
+
+    /**
+     * Candidatos que el jugador ha borrado a mano de cada casilla con las notas automaticas: mascara de 9 bits.
+     * Con ellos las notas de una casilla vacia son siempre sus candidatos menos los borrados, y se pueden recalcular exactamente.
+     */
+    private short[] borradas;
+
+    /** Indica si al ingresar un valor se quita automaticamente de las notas de sus vecinas. */
+    private boolean notasAutomaticas;
+
+    /** Matriz de vistas de tipo Celda sobre el tablero, creada la primera vez que se pide. */
     private Celda[][] tablero;
 
     /**
-     * Constructor de la clase Tablero_Sudoku que inicializa el tablero con objetos Celda.
+     * Constructor de la clase Tablero_Sudoku que inicializa un tablero vacio.
      */
     public Tablero_Sudoku()
     {
-        this.tablero = new Celda[9][9];
-        for (int i = 0; i < 9; i++) 
-        {
-            for (int j = 0; j < 9; j++) 
-            {
-                this.tablero[i][j] = new Celda(); // Inicializa cada celda con un nuevo objeto Celda
-            }
-        }
-        
+        this.valoresBuenos = new byte[81];
+        this.valoresDados = new byte[81];
+        this.base = new long[2];
+        this.correctas = new long[2];
+        this.apariciones = new byte[27 * 10];
     }
 
     /**
@@ -29,14 +72,436 @@ public class Tablero_Sudoku extends Celda
      * @return el tablero del Sudoku como una matriz de celdas.
      */
     public Celda[][] getTablero() {
+        if (tablero == null)
+        {
+            tablero = new Celda[9][9];
+            for (int i = 0; i < 9; i++)
+            {
+                for (int j = 0; j < 9; j++)
+                {
+                    this.tablero[i][j] = new Celda(this, i * 9 + j); // Cada celda es una vista sobre su casilla
+                }
+            }
+        }
         return tablero;
     }
 
     /**
-     * Establece el tablero del Sudoku.
+     * Establece el tablero del Sudoku copiando los valores de una matriz de celdas.
      * @param tablero 	la matriz de celdas que representa el tablero del Sudoku.
      */
     public void setTablero(Celda[][] tablero) {
-        this.tablero = tablero;
+        for (int i = 0; i < 9; i++)
+        {
+            for (int j = 0; j < 9; j++)
+            {
+                int indice = i * 9 + j;
+                valoresBuenos[indice] = (byte) tablero[i][j].getValorBueno();
+                setValorDado(indice, tablero[i][j].getValorDado());
+                setValorBase(indice, tablero[i][j].isBase());
+                setCorrecto(indice, tablero[i][j].isCorrecto());
+            }
+        }
+    }
+
+    /**
+     * Vacia todas las casillas del tablero.
+     */
+    public void vaciar()
+    {
+        Arrays.fill(valoresBuenos, (byte) 0);
+        Arrays.fill(valoresDados, (byte) 0);
+        base[0] = base[1] = 0;
+        correctas[0] = correctas[1] = 0;
+        numCorrectas = 0;
+        numLlenas = 0;
+        Arrays.fill(apariciones, (byte) 0);
+        numDuplicados = 0;
+        if (notas != null)
+        {
+            Arrays.fill(notas, (short) 0);
+            Arrays.fill(borradas, (short) 0);
+        }
+    }
+
+    /**
+     * Obtiene el array con los valores correctos de las 81 casillas, recorridas fila a fila.
+     * Se devuelve el propio array del tablero, sin copiarlo, para que el resolutor trabaje directamente sobre el.
+     * @return los valores correctos del tablero.
+     */
+    public byte[] getValoresBuenos()
+    {
+        return valoresBuenos;
+    }
+
+    /**
+     * Obtiene el valor correcto de una casilla.
+     * @param indice El indice de la casilla, de 0 a 80.
+     * @return el valor correcto de la casilla.
+     */
+    public int getValorBueno(int indice)
+    {
+        return valoresBuenos[indice];
+    }
+
+    /**
+     * Establece el valor correcto de una casilla.
+     * @param indice El indice de la casilla, de 0 a 80.
+     * @param valor El valor correcto de la casilla.
+     */
+    public void setValorBueno(int indice, int valor)
+    {
+        valoresBuenos[indice] = (byte) valor;
+    }
+
+    /**
+     * Obtiene el valor ingresado por el usuario en una casilla.
+     * @param indice El indice de la casilla, de 0 a 80.
+     * @return el valor ingresado por el usuario.
+     */
+    public int getValorDado(int indice)
+    {
+        return valoresDados[indice];
+    }
+
+    /**
+     * Establece el valor ingresado por el usuario en una casilla.
+     * Si el valor coincide con el valor correcto, la casilla se marca como correcta.
+     * @param indice El indice de la casilla, de 0 a 80.
+     * @param valor El valor ingresado por el usuario.
+     */
+    public void setValorDado(int indice, int valor)
+    {
+        if (valor == valoresBuenos[indice])
+        {
+            setCorrecto(indice, true);
+        }
+        int anterior = valoresDados[indice];
+        if ((anterior != 0) != (valor != 0))
+        {
+            numLlenas += valor != 0 ? 1 : -1;
+        }
+        if (anterior != 0)
+        {
+            contarEnUnidades(indice, anterior, -1);
+        }
+        valoresDados[indice] = (byte) valor;
+
+        boolean actualizarNotas = notasAutomaticas && anterior != valor;
+        if (actualizarNotas && anterior != 0)
+        {
+            restaurarNotaEnVecinas(indice, anterior);
+        }
+        if (actualizarNotas && valor != 0)
+        {
+            eliminarNotaDeVecinas(indice, valor);
+        }
+        if (valor != 0)
+        {
+            contarEnUnidades(indice, valor, 1);
+        }
+        else if (actualizarNotas)
+        {
+            // La casilla vaciada vuelve a anotar los numeros que admite, salvo los que el jugador habia borrado
+            notas[indice] = (short) (calcularNotas(indice) & ~borradas[indice]);
+        }
+    }
+
+    /**
+     * Suma o resta una aparicion de un numero en la fila, la columna y la region de una casilla,
+     * llevando la cuenta de los duplicados.
+     * @param indice El indice de la casilla, de 0 a 80.
+     * @param valor El numero, de 1 a 9.
+     * @param delta 1 para sumar la aparicion, -1 para restarla.
+     */
+    private void contarEnUnidades(int indice, int valor, int delta)
+    {
+        int fila = indice / 9;
+        int columna = indice % 9;
+        contarEnUnidad(fila * 10 + valor, delta);
+        contarEnUnidad((9 + columna) * 10 + valor, delta);
+        contarEnUnidad((18 + (fila / 3) * 3 + columna / 3) * 10 + valor, delta);
+    }
+
+    /**
+     * Suma o resta una aparicion de un numero en una unidad, llevando la cuenta de los duplicados.
+     * @param posicion La posicion unidad * 10 + numero en el array de apariciones.
+     * @param delta 1 para sumar la aparicion, -1 para restarla.
+     */
+    private void contarEnUnidad(int posicion, int delta)
+    {
+        // Sumar a un numero ya presente crea un duplicado; restar de uno repetido quita uno
+        if (delta > 0 ? apariciones[posicion] >= 1 : apariciones[posicion] >= 2)
+        {
+            numDuplicados += delta;
+        }
+        apariciones[posicion] += delta;
+    }
+
+    /**
+     * Comprueba en O(1) si el valor ingresado en una casilla se repite en su fila, columna o region.
+     * @param indice El indice de la casilla, de 0 a 80.
+     * @return true si la casilla tiene un valor que aparece mas de una vez en alguna de sus unidades, false de lo contrario.
+     */
+    public boolean enConflicto(int indice)
+    {
+        int valor = valoresDados[indice];
+        if (valor == 0)
+        {
+            return false;
+        }
+        int fila = indice / 9;
+        int columna = indice % 9;
+        return apariciones[fila * 10 + valor] > 1
+                || apariciones[(9 + columna) * 10 + valor] > 1
+                || apariciones[(18 + (fila / 3) * 3 + columna / 3) * 10 + valor] > 1;
+    }
+
+    /**
+     * Obtiene en O(1) el numero de duplicados del tablero: por cada fila, columna y region, las apariciones de cada numero
+     * que sobran tras la primera. Es 0 si y solo si ningun valor ingresado entra en conflicto.
+     * @return el numero de duplicados.
+     */
+    public int getNumDuplicados()
+    {
+        return numDuplicados;
+    }
+
+    /**
+     * Verifica si una casilla es parte de la configuracion inicial del sudoku.
+     * @param indice El indice de la casilla, de 0 a 80.
+     * @return true si la casilla es parte de la configuracion inicial, false de lo contrario.
+     */
+    public boolean isBase(int indice)
+    {
+        return (base[indice >> 6] & (1L << indice)) != 0;
+    }
+
+    /**
+     * Establece si una casilla es parte de la configuracion inicial del sudoku.
+     * @param indice El indice de la casilla, de 0 a 80.
+     * @param esBase True si es parte de la configuracion inicial, false si no lo es.
+     */
+    public void setValorBase(int indice, boolean esBase)
+    {
+        if (esBase)
+        {
+            base[indice >> 6] |= 1L << indice;
+        }
+        else
+        {
+            base[indice >> 6] &= ~(1L << indice);
+        }
+    }
+
+    /**
+     * Devuelve si el valor ingresado en una casilla es correcto.
+     * @param indice El indice de la casilla, de 0 a 80.
+     * @return true si el valor ingresado es correcto, false si es incorrecto.
+     */
+    public boolean isCorrecto(int indice)
+    {
+        return (correctas[indice >> 6] & (1L << indice)) != 0;
+    }
+
+    /**
+     * Establece si el valor ingresado en una casilla es correcto.
+     * @param indice El indice de la casilla, de 0 a 80.
+     * @param correcto True si es correcto, false si es incorrecto.
+     */
+    public void setCorrecto(int indice, boolean correcto)
+    {
+        if (correcto != isCorrecto(indice))
+        {
+            numCorrectas += correcto ? 1 : -1;
+        }
+        if (correcto)
+        {
+            correctas[indice >> 6] |= 1L << indice;
+        }
+        else
+        {
+            correctas[indice >> 6] &= ~(1L << indice);
+        }
+    }
+
+    /**
+     * Obtiene el numero de casillas marcadas como correctas en O(1).
+     * @return las casillas correctas, de 0 a 81.
+     */
+    public int getNumCorrectas()
+    {
+        return numCorrectas;
+    }
+
+    /**
+     * Obtiene el numero de casillas con un valor ingresado en O(1).
+     * @return las casillas llenas, de 0 a 81.
+     */
+    public int getNumLlenas()
+    {
+        return numLlenas;
+    }
+
+    /**
+     * Obtiene las notas de una casilla.
+     * @param indice El indice de la casilla, de 0 a 80.
+     * @return la mascara de 9 bits de los candidatos anotados, con el bit numero - 1 para cada numero.
+     */
+    public int getNotas(int indice)
+    {
+        return notas != null ? notas[indice] : 0;
+    }
+
+    /**
+     * Establece las notas de una casilla.
+     * @param indice El indice de la casilla, de 0 a 80.
+     * @param mascara La mascara de 9 bits de los candidatos anotados.
+     */
+    public void setNotas(int indice, int mascara)
+    {
+        reservarNotas();
+        notas[indice] = (short) (mascara & 0x1FF);
+    }
+
+    /**
+     * Anota o borra un candidato de una casilla.
+     * Con las notas automaticas solo se puede alternar un numero que no aparece en la fila, columna o region de la casilla,
+     * y se recuerda si el jugador lo ha borrado para no volver a anotarlo al vaciar una vecina.
+     * Alternar dos veces el mismo numero deja la casilla como estaba.
+     * @param indice El indice de la casilla, de 0 a 80.
+     * @param valor El numero, de 1 a 9.
+     * @return true si la nota ha cambiado, false si no se podia alternar.
+     */
+    public boolean alternarNota(int indice, int valor)
+    {
+        int bit = 1 << (valor - 1);
+        reservarNotas();
+        if (notasAutomaticas)
+        {
+            if (apareceEnUnidades(indice, valor))
+            {
+                return false;
+            }
+            borradas[indice] ^= (short) bit;
+        }
+        notas[indice] ^= (short) bit;
+        return true;
+    }
+
+    /**
+     * Indica si al ingresar un valor se quita automaticamente de las notas de sus vecinas.
+     * @return true si las notas se actualizan automaticamente.
+     */
+    public boolean isNotasAutomaticas()
+    {
+        return notasAutomaticas;
+    }
+
+    /**
+     * Activa o desactiva la actualizacion automatica de las notas. Al activarla se crean, si hace falta, y se calculan todas desde cero.
+     * @param notasAutomaticas true para actualizar las notas en cada jugada.
+     */
+    public void setNotasAutomaticas(boolean notasAutomaticas)
+    {
+        this.notasAutomaticas = notasAutomaticas;
+        if (notasAutomaticas)
+        {
+            calcularNotas();
+        }
+    }
+
+    /**
+     * Calcula las notas de todas las casillas vacias a partir de los valores ingresados: cada casilla anota los numeros
+     * que no aparecen en su fila, columna o region, y se olvidan las notas borradas a mano.
+     * Con los contadores por unidad cada casilla cuesta O(9).
+     */
+    public void calcularNotas()
+    {
+        reservarNotas();
+        Arrays.fill(borradas, (short) 0);
+        for (int i = 0; i < 81; i++)
+        {
+            notas[i] = (short) (valoresDados[i] == 0 ? calcularNotas(i) : 0);
+        }
+    }
+
+    /**
+     * Crea los arrays de notas si aun no existen.
+     */
+    private void reservarNotas()
+    {
+        if (notas == null)
+        {
+            notas = new short[81];
+            borradas = new short[81];
+        }
+    }
+
+    /**
+     * Calcula los numeros que admite una casilla segun los valores ingresados en su fila, columna y region.
+     * @param indice El indice de la casilla, de 0 a 80.
+     * @return la mascara de 9 bits de los numeros que no aparecen en ninguna de sus unidades.
+     */
+    private int calcularNotas(int indice)
+    {
+        int mascara = 0;
+        for (int valor = 1; valor <= 9; valor++)
+        {
+            if (!apareceEnUnidades(indice, valor))
+            {
+                mascara |= 1 << (valor - 1);
+            }
+        }
+        return mascara;
+    }
+
+    /**
+     * Quita un numero de las notas de las 20 vecinas de una casilla, recorriendo la tabla precalculada de vecinas.
+     * @param indice El indice de la casilla, de 0 a 80.
+     * @param valor El numero, de 1 a 9.
+     */
+    private void eliminarNotaDeVecinas(int indice, int valor)
+    {
+        short mascara = (short) ~(1 << (valor - 1));
+        for (int vecina : VecinasSudoku.VECINAS[indice])
+        {
+            notas[vecina] &= mascara;
+        }
+    }
+
+    /**
+     * Deshace una eliminacion de eliminarNotaDeVecinas, volviendo a anotar el numero en las vecinas que lo admiten.
+     * Debe llamarse despues de descontar el valor de las unidades de la casilla.
+     * No se anota en las vecinas llenas, en las que aun ven ese numero en otra casilla de su fila, columna o region,
+     * ni en las que el jugador lo habia borrado a mano.
+     * @param indice El indice de la casilla, de 0 a 80.
+     * @param valor El numero, de 1 a 9.
+     */
+    private void restaurarNotaEnVecinas(int indice, int valor)
+    {
+        int bit = 1 << (valor - 1);
+        for (int vecina : VecinasSudoku.VECINAS[indice])
+        {
+            if (valoresDados[vecina] == 0 && (borradas[vecina] & bit) == 0 && !apareceEnUnidades(vecina, valor))
+            {
+                notas[vecina] |= (short) bit;
+            }
+        }
+    }
+
+    /**
+     * Comprueba en O(1) si un numero aparece entre los valores ingresados de la fila, la columna o la region de una casilla.
+     * @param indice El indice de la casilla, de 0 a 80.
+     * @param valor El numero, de 1 a 9.
+     * @return true si el numero aparece en alguna de las unidades de la casilla.
+     */
+    private boolean apareceEnUnidades(int indice, int valor)
+    {
+        int fila = indice / 9;
+        int columna = indice % 9;
+        return apariciones[fila * 10 + valor] > 0
+                || apariciones[(9 + columna) * 10 + valor] > 0
+                || apariciones[(18 + (fila / 3) * 3 + columna / 3) * 10 + valor] > 0;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,74 @@
+package Sudoku;
+
+/**
+ * Tecnicas de resolucion humanas que reconoce CalificadorDificultad, ordenadas de menor a mayor dificultad.
+ * Cada tecnica indica el nivel de dificultad ("Facil", "Medio" o "Dificil") de un Sudoku que la necesita.
+ */
+public enum TecnicaResolucion
+{
+	/** Casilla con un unico candidato. */
+	SINGLE_DESNUDO("Single desnudo", "Facil"),
+
+	/** Numero que solo cabe en una casilla de su fila, columna o region. */
+	SINGLE_OCULTO("Single oculto", "Facil"),
+
+	/** Dos casillas de una unidad con los mismos dos candidatos. */
+	PAREJA_DESNUDA("Pareja desnuda", "Medio"),
+
+	/** Dos numeros que solo caben en las mismas dos casillas de una unidad. */
+	PAREJA_OCULTA("Pareja oculta", "Medio"),
+
+	/** Numero que dentro de una region solo cabe en una fila o columna, o al reves. */
+	INTERSECCION("Interseccion", "Medio"),
+
+	/** Numero que en dos filas solo cabe en las mismas dos columnas, o al reves. */
+	X_WING("X-Wing", "Dificil"),
+
+	/** Cadena corta de tres casillas con dos candidatos cada una. */
+	XY_WING("XY-Wing", "Dificil"),
+
+	/** Cadena de parejas conjugadas de un mismo numero coloreadas alternativamente. */
+	CADENA_COLORES("Cadena de colores", "Dificil"),
+
+	/** Ninguna de las tecnicas anteriores permite avanzar y hay que probar valores. */
+	PRUEBA_Y_ERROR("Prueba y error", "Dificil");
+
+	/**
+	 * Nombre legible de la tecnica.
+	 */
+	private final String nombre;
+
+	/**
+	 * Nivel de dificultad de un Sudoku que necesita la tecnica.
+	 */
+	private final String nivel;
+
+	/**
+	 * Constructor de la enumeracion TecnicaResolucion.
+	 * @param nombre Nombre legible de la tecnica.
+	 * @param nivel Nivel de dificultad de un Sudoku que necesita la tecnica.
+	 */
+	TecnicaResolucion(String nombre, String nivel)
+	{
+		this.nombre = nombre;
+		this.nivel = nivel;
+	}
+
+	/**
+	 * Obtiene el nombre legible de la tecnica.
+	 * @return el nombre de la tecnica.
+	 */
+	public String getNombre()
+	{
+		return nombre;
+	}
+
+	/**
+	 * Obtiene el nivel de dificultad de un Sudoku que necesita la tecnica.
+	 * @return "Facil", "Medio" o "Dificil".
+	 */
+	public String getNivel()
+	{
+		return nivel;
+	}
+}
@@ -0,0 +1,148 @@
+package Sudoku;
+
+import java.util.SplittableRandom;
+
+/**
+ * Obtiene Sudokus nuevos a partir de uno ya verificado aplicandole una simetria aleatoria: renombrado de numeros,
+ * permutacion de filas dentro de cada banda y de columnas dentro de cada pila, intercambio de bandas y de pilas, y trasposicion.
+ * Combinadas, estas operaciones incluyen los giros y las reflexiones del tablero.
+ * Las simetrias conservan la unicidad de la solucion y las tecnicas necesarias para resolverlo, y la solucion se transforma igual,
+ * por lo que cada Sudoku derivado cuesta O(81) sin resolver ni calificar nada.
+ * Como en GeneradorSudoku, la variante numero k de una semilla es siempre la misma.
+ * No es seguro compartir una instancia entre hilos.
+ */
+public class TransformadorSudoku
+{
+	/**
+	 * Generador de numeros aleatorios.
+	 */
+	private SplittableRandom random;
+
+	/**
+	 * Fila original que ocupa cada fila del Sudoku derivado.
+	 */
+	private final int[] filas;
+
+	/**
+	 * Columna original que ocupa cada columna del Sudoku derivado.
+	 */
+	private final int[] columnas;
+
+	/**
+	 * Numero nuevo que corresponde a cada numero original, indexado del 0 al 9; el 0 se conserva.
+	 */
+	private final int[] digitos;
+
+	/**
+	 * Constructor de la clase TransformadorSudoku.
+	 */
+	public TransformadorSudoku()
+	{
+		this(new SplittableRandom());
+	}
+
+	/**
+	 * Constructor de la clase TransformadorSudoku con un generador de numeros aleatorios concreto.
+	 * @param random El generador de numeros aleatorios.
+	 */
+	public TransformadorSudoku(SplittableRandom random)
+	{
+		this.random = random;
+		this.filas = new int[9];
+		this.columnas = new int[9];
+		this.digitos = new int[10];
+	}
+
+	/**
+	 * Deriva un Sudoku nuevo aplicando una simetria aleatoria.
+	 * @param sudoku El Sudoku de partida.
+	 * @return el Sudoku transformado, con su solucion y la misma tecnica.
+	 */
+	public SudokuGenerado transformar(SudokuGenerado sudoku)
+	{
+		int[] pistas = new int[81];
+		int[] solucion = new int[81];
+		transformar(sudoku.getPistas(), sudoku.getSolucion(), pistas, solucion);
+		return new SudokuGenerado(pistas, solucion, sudoku.getTecnica());
+	}
+
+	/**
+	 * Deriva un Sudoku nuevo aplicando la misma simetria aleatoria a sus pistas y a su solucion, sin reservar memoria.
+	 * @param pistas Las pistas de partida, 0 en las casillas vacias.
+	 * @param solucion La solucion de partida.
+	 * @param pistasDestino Array de 81 posiciones donde se guardan las pistas transformadas.
+	 * @param solucionDestino Array de 81 posiciones donde se guarda la solucion transformada.
+	 */
+	public void transformar(int[] pistas, int[] solucion, int[] pistasDestino, int[] solucionDestino)
+	{
+		permutarLineas(filas);
+		permutarLineas(columnas);
+		digitos[0] = 0;
+		for (int d = 1; d <= 9; d++)
+		{
+			digitos[d] = d;
+		}
+		barajar(digitos, 1, 9);
+		boolean traspuesta = random.nextBoolean();
+
+		for (int f = 0; f < 9; f++)
+		{
+			for (int c = 0; c < 9; c++)
+			{
+				int origen = traspuesta ? columnas[c] * 9 + filas[f] : filas[f] * 9 + columnas[c];
+				pistasDestino[f * 9 + c] = digitos[pistas[origen]];
+				solucionDestino[f * 9 + c] = digitos[solucion[origen]];
+			}
+		}
+	}
+
+	/**
+	 * Deriva la variante numero indice de una semilla. El resultado solo depende del Sudoku de partida, la semilla y el indice.
+	 * @param semilla La semilla de la serie de variantes.
+	 * @param indice La posicion de la variante dentro de la serie.
+	 * @param pistas Las pistas de partida, 0 en las casillas vacias.
+	 * @param solucion La solucion de partida.
+	 * @param pistasDestino Array de 81 posiciones donde se guardan las pistas transformadas.
+	 * @param solucionDestino Array de 81 posiciones donde se guarda la solucion transformada.
+	 */
+	public void transformar(long semilla, long indice, int[] pistas, int[] solucion, int[] pistasDestino, int[] solucionDestino)
+	{
+		random = new SplittableRandom(GeneradorSudoku.semillaSudoku(semilla, indice));
+		transformar(pistas, solucion, pistasDestino, solucionDestino);
+	}
+
+	/**
+	 * Genera una permutacion aleatoria de 9 lineas que respeta las bandas: baraja las bandas y las lineas dentro de cada una.
+	 * @param lineas Array de 9 posiciones donde se guarda la linea original que ocupa cada linea nueva.
+	 */
+	private void permutarLineas(int[] lineas)
+	{
+		int[] bandas = { 0, 1, 2 };
+		barajar(bandas, 0, 3);
+		for (int b = 0; b < 3; b++)
+		{
+			for (int k = 0; k < 3; k++)
+			{
+				lineas[b * 3 + k] = bandas[b] * 3 + k;
+			}
+			barajar(lineas, b * 3, 3);
+		}
+	}
+
+	/**
+	 * Baraja un tramo de un array con el algoritmo de Fisher-Yates.
+	 * @param valores El array a barajar.
+	 * @param desde La primera posicion del tramo.
+	 * @param n El numero de elementos del tramo.
+	 */
+	private void barajar(int[] valores, int desde, int n)
+	{
+		for (int k = n - 1; k > 0; k--)
+		{
+			int j = desde + random.nextInt(k + 1);
+			int aux = valores[desde + k];
+			valores[desde + k] = valores[j];
+			valores[j] = aux;
+		}
+	}
+}
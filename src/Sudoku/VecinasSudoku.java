@@ -0,0 +1,46 @@
+package Sudoku;
+
+/**
+ * Vecinas de cada casilla del tablero: las que comparten con ella fila, columna o region 3x3.
+ * La tabla se calcula una sola vez y la comparten el tablero, la interfaz y el calificador de dificultad.
+ */
+public final class VecinasSudoku
+{
+	/**
+	 * Casillas que comparten fila, columna o region 3x3 con cada casilla: 20 por casilla.
+	 */
+	static final int[][] VECINAS = new int[81][20];
+
+	static
+	{
+		for (int i = 0; i < 81; i++)
+		{
+			int n = 0;
+			for (int j = 0; j < 81; j++)
+			{
+				if (seVen(i, j))
+				{
+					VECINAS[i][n++] = j;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Constructor privado: la clase solo tiene miembros estaticos.
+	 */
+	private VecinasSudoku()
+	{
+	}
+
+	/**
+	 * Comprueba si dos casillas distintas comparten fila, columna o region 3x3.
+	 * @param a El indice de la primera casilla, de 0 a 80.
+	 * @param b El indice de la segunda casilla, de 0 a 80.
+	 * @return true si las casillas son distintas y se ven, false de lo contrario.
+	 */
+	static boolean seVen(int a, int b)
+	{
+		return a != b && (a / 9 == b / 9 || a % 9 == b % 9 || MotorBitmask.region(a / 9, a % 9) == MotorBitmask.region(b / 9, b % 9));
+	}
+}